@@ -5,24 +5,42 @@ import com.pallux.practicebot.commands.AreaCommand;
 import com.pallux.practicebot.managers.AreaManager;
 import com.pallux.practicebot.managers.BotManager;
 import com.pallux.practicebot.managers.ConfigManager;
+import com.pallux.practicebot.managers.ConfigWatcher;
 import com.pallux.practicebot.managers.KitManager;
+import com.pallux.practicebot.managers.ProfileManager;
+import com.pallux.practicebot.managers.LoadGovernor;
+import com.pallux.practicebot.recorder.FlightRecorder;
 import com.pallux.practicebot.utils.MessageUtils;
+import com.pallux.practicebot.utils.TickProfiler;
 import net.citizensnpcs.api.CitizensAPI;
+import net.citizensnpcs.api.event.CitizensEnableEvent;
+import net.citizensnpcs.api.npc.MemoryNPCDataStore;
 import net.citizensnpcs.api.npc.NPC;
+import net.citizensnpcs.api.npc.NPCRegistry;
 import net.citizensnpcs.api.trait.TraitInfo;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class PracticeBot extends JavaPlugin {
+public class PracticeBot extends JavaPlugin implements Listener {
+
+    private static final String NPC_REGISTRY_NAME = "PracticeBot";
 
     private ConfigManager configManager;
+    private ConfigWatcher configWatcher;
     private MessageUtils messageUtils;
     private AreaManager areaManager;
     private KitManager kitManager;
+    private ProfileManager profileManager;
     private BotManager botManager;
+    private TickProfiler tickProfiler;
+    private LoadGovernor loadGovernor;
+    private FlightRecorder flightRecorder;
+    private NPCRegistry npcRegistry;
+    private boolean ready = false;
 
     @Override
     public void onEnable() {
@@ -35,42 +53,68 @@ public class PracticeBot extends JavaPlugin {
         // Register our custom trait with Citizens
         CitizensAPI.getTraitFactory().registerTrait(TraitInfo.create(PracticeBotTrait.class).withName("practicebottrait"));
 
+        // Bots live in their own in-memory registry, so they are never saved to Citizens' saves.yml
+        npcRegistry = CitizensAPI.createNamedNPCRegistry(NPC_REGISTRY_NAME, new MemoryNPCDataStore());
+
         // Initialize managers first (but don't start area spawning yet)
         initializeManagers();
         registerCommands();
 
-        // Delay cleanup and then start area management
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                getLogger().info("Running cleanup of leftover NPCs...");
-                cleanupOldBots();
-
-                // After cleanup, start the area management
-                if (areaManager != null) {
-                    getLogger().info("Starting area management...");
-                    areaManager.startManagement();
-                }
-            }
-        }.runTaskLater(this, 60L); // Wait 3 seconds
+        // Citizens loads its saved NPCs one tick after enabling and then fires CitizensEnableEvent.
+        // If the server is already running (PracticeBot was reloaded on its own), that has happened already.
+        getServer().getPluginManager().registerEvents(this, this);
+        if (getServer().getCurrentTick() > 0) {
+            getServer().getScheduler().runTask(this, this::onCitizensReady);
+        }
 
         getLogger().info("PracticeBot has been enabled successfully!");
     }
 
+    @EventHandler
+    public void onCitizensEnable(CitizensEnableEvent event) {
+        onCitizensReady();
+    }
+
+    /**
+     * Start area management once Citizens is ready. Areas themselves become active
+     * as soon as their world is loaded, see {@link AreaManager}.
+     */
+    private void onCitizensReady() {
+        if (ready || areaManager == null) return;
+        ready = true;
+
+        areaManager.startManagement();
+        loadGovernor.start();
+        configWatcher.start();
+    }
+
     @Override
     public void onDisable() {
+        if (configWatcher != null) {
+            configWatcher.stop();
+        }
+        if (loadGovernor != null) {
+            loadGovernor.stop();
+        }
         if (areaManager != null) {
             getLogger().info("Despawning all PracticeBot NPCs...");
-            areaManager.shutdown();
+            areaManager.shutdownNow();
         }
 
-        // Final cleanup on disable
-        cleanupOldBots();
+        if (npcRegistry != null) {
+            npcRegistry.deregisterAll();
+            CitizensAPI.removeNamedNPCRegistry(NPC_REGISTRY_NAME);
+            npcRegistry = null;
+        }
 
         getLogger().info("PracticeBot has been disabled!");
     }
 
-    private void cleanupOldBots() {
+    /**
+     * Scan the default Citizens registry for PracticeBot NPCs left behind by older versions.
+     * Only runs on /pbarea repair, since it touches every NPC on the server. Returns the number of NPCs removed, or -1 if the registry isn't available.
+     */
+    public int repairRegistry() {
         getLogger().info("Scanning for and removing any leftover PracticeBot NPCs...");
         int count = 0;
 
@@ -79,7 +123,7 @@ public class PracticeBot extends JavaPlugin {
         try {
             if (CitizensAPI.getNPCRegistry() == null) {
                 getLogger().warning("Citizens registry not ready yet!");
-                return;
+                return -1;
             }
 
             for (NPC npc : CitizensAPI.getNPCRegistry()) {
@@ -109,6 +153,7 @@ public class PracticeBot extends JavaPlugin {
             getLogger().severe("Error during bot cleanup: " + e.getMessage());
             e.printStackTrace();
         }
+        return count;
     }
 
     private boolean checkDependencies() {
@@ -126,11 +171,17 @@ public class PracticeBot extends JavaPlugin {
     private void initializeManagers() {
         configManager = new ConfigManager(this);
         configManager.initialize();
+        configWatcher = new ConfigWatcher(this);
 
         messageUtils = new MessageUtils(configManager.getMessagesConfig(), configManager.getMainConfig());
+        tickProfiler = new TickProfiler(this);
+        loadGovernor = new LoadGovernor(this);
+        flightRecorder = new FlightRecorder(this);
         kitManager = new KitManager(this);
+        profileManager = new ProfileManager(this);
         botManager = new BotManager(this);
         areaManager = new AreaManager(this);
+        areaManager.addMembershipListener(botManager);
     }
 
     private void registerCommands() {
@@ -140,8 +191,14 @@ public class PracticeBot extends JavaPlugin {
     }
 
     public ConfigManager getConfigManager() { return configManager; }
+    public ConfigWatcher getConfigWatcher() { return configWatcher; }
     public MessageUtils getMessageUtils() { return messageUtils; }
     public AreaManager getAreaManager() { return areaManager; }
     public KitManager getKitManager() { return kitManager; }
+    public ProfileManager getProfileManager() { return profileManager; }
     public BotManager getBotManager() { return botManager; }
+    public TickProfiler getTickProfiler() { return tickProfiler; }
+    public LoadGovernor getLoadGovernor() { return loadGovernor; }
+    public FlightRecorder getFlightRecorder() { return flightRecorder; }
+    public NPCRegistry getNpcRegistry() { return npcRegistry; }
 }
\ No newline at end of file
@@ -1,10 +1,16 @@
 package com.pallux.practicebot.bot;
 
 import com.pallux.practicebot.PracticeBot;
+import com.pallux.practicebot.jfr.BotTickEvent;
+import com.pallux.practicebot.jfr.TargetAcquiredEvent;
 import com.pallux.practicebot.managers.AreaManager;
 import com.pallux.practicebot.managers.BotManager;
-import net.citizensnpcs.api.ai.Navigator;
-import net.citizensnpcs.api.npc.NPC;
+import com.pallux.practicebot.managers.ProfileManager;
+import com.pallux.practicebot.recorder.FlightRecord;
+import com.pallux.practicebot.recorder.FlightRecorder;
+import com.pallux.practicebot.utils.TickProfiler;
+import com.pallux.practicebot.world.FlowField;
+import com.pallux.practicebot.world.NavigationGrid;
 import org.bukkit.GameMode;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -12,190 +18,444 @@ import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.ThrownPotion;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 import org.bukkit.inventory.meta.PotionMeta;
 import org.bukkit.util.Vector;
 
 import java.util.Optional;
-import java.util.Random;
-
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Combat and wandering behaviour of one bot. Cooldowns, flags, movement and the
+ * current target live in the shared {@link BotStateStore} under this bot's handle;
+ * this object only holds the references that don't fit in a primitive array.
+ *
+ * The bot's profile sets how often it makes decisions: between decisions it
+ * only keeps moving the way it last decided. The bot's body is reached through its
+ * {@link BotBackend}; bodies without an inventory skip rods, potions, tridents and totems.
+ */
 public class BotAI {
 
     private final PracticeBot plugin;
-    private final NPC npc;
+    private final BotBackend body;
+    private final String kitName;
+    private final ProfileManager.Profile profile;
     private final AreaManager.PracticeArea area;
-    private final Random random;
     private final BotManager botManager;
-
-    private LivingEntity target;
-    private int attackCooldown = 0;
-    private int jumpCooldown = 0;
-    private int retargetCooldown = 0;
-    private int rodCooldown = 0;
-    private int potionCooldown = 0;
-    private int tridentCooldown = 0;
-
-    private Vector movementVector = new Vector(0, 0, 0);
-    private boolean wantsToJump = false;
-
-    public BotAI(PracticeBot plugin, NPC npc, String kitName, AreaManager.PracticeArea area) {
+    private final BotStateStore state;
+    private final int handle;
+    private final int slot;
+    private final int cooldownBase;
+    private final TickProfiler profiler;
+    private final FlightRecorder recorder;
+
+    private final Location scratchLocation = new Location(null, 0, 0, 0);
+    private final Location distanceFrom = new Location(null, 0, 0, 0);
+    private final Location distanceTo = new Location(null, 0, 0, 0);
+    private FlightRecord.Action action = FlightRecord.Action.WANDER;
+
+    private double comboChance;
+    private double strafeChance;
+    private double criticalChance;
+    private double rodChance;
+
+    public BotAI(PracticeBot plugin, BotBackend body, String kitName, ProfileManager.Profile profile,
+                 AreaManager.PracticeArea area, int handle) {
         this.plugin = plugin;
-        this.npc = npc;
+        this.body = body;
+        this.kitName = kitName;
+        this.profile = profile;
         this.area = area;
-        this.random = new Random();
         this.botManager = plugin.getBotManager();
+        this.state = botManager.getStateStore();
+        this.handle = handle;
+        this.slot = BotStateStore.slotOf(handle);
+        this.cooldownBase = slot * BotStateStore.COOLDOWNS;
+        this.profiler = plugin.getTickProfiler();
+        this.recorder = plugin.getFlightRecorder();
+        setFlag(BotStateStore.RETARGET_REQUESTED, true);
+        // Spread the background sweeps of bots spawned together over the sweep interval
+        setCooldown(BotStateStore.RETARGET, ThreadLocalRandom.current().nextInt(profile.getRetargetInterval()));
+        setSkillModifiers(profile.getComboChance(), profile.getStrafeChance(), profile.getCriticalChance(),
+                0, profile.getRodChance(), 0);
+        state.attach(handle, this);
+    }
+
+    private int cooldown(int kind) {
+        return state.cooldowns[cooldownBase + kind];
     }
 
+    private void setCooldown(int kind, int ticks) {
+        state.cooldowns[cooldownBase + kind] = ticks;
+    }
+
+    private boolean hasFlag(byte flag) {
+        return (state.flags[slot] & flag) != 0;
+    }
+
+    private void setFlag(byte flag, boolean value) {
+        state.flags[slot] = (byte) (value ? state.flags[slot] | flag : state.flags[slot] & ~flag);
+    }
+
+    private void setMovement(double x, double z) {
+        state.moveX[slot] = x;
+        state.moveZ[slot] = z;
+    }
+
+    private void addMovement(Vector direction) {
+        state.moveX[slot] += direction.getX();
+        state.moveZ[slot] += direction.getZ();
+    }
+
+    /**
+     * Set the chances behind the bot's combat choices. Blocking and bows aren't
+     * part of the bot's repertoire, so those two are accepted but unused.
+     */
     public void setSkillModifiers(double combo, double strafe, double critical, double block, double rod, double bow) {
+        this.comboChance = combo;
+        this.strafeChance = strafe;
+        this.criticalChance = critical;
+        this.rodChance = rod;
     }
 
-    public void tick() {
-        if (!npc.isSpawned() || !(npc.getEntity() instanceof Player)) {
+    public void tick(int currentTick) {
+        LivingEntity bot = body.getEntity();
+        if (bot == null || !body.isSpawned()) {
             return;
         }
-        Player bot = (Player) npc.getEntity();
+        String areaName = area.getName();
+
+        int reactionInterval = profile.getReactionInterval();
+        if (reactionInterval > 1 && (currentTick + slot) % reactionInterval != 0) {
+            long start = profiler.start();
+            applyMovement(bot, state.targets[slot]);
+            turnHead(bot);
+            profiler.record(areaName, TickProfiler.Phase.MOVEMENT, start);
+            return;
+        }
+
+        BotTickEvent tickEvent = new BotTickEvent();
+        tickEvent.begin();
+
+        long start = profiler.start();
+        PlayerInventory inventory = body.getInventory();
+        if (inventory != null) {
+            checkTotemUsage(bot, inventory);
+        }
+        profiler.record(areaName, TickProfiler.Phase.TOTEM, start);
 
-        updateCooldowns();
-        checkTotemUsage(bot);
+        start = profiler.start();
+        validateTarget(bot);
         updateTarget(bot);
+        profiler.record(areaName, TickProfiler.Phase.RETARGET, start);
 
+        LivingEntity target = state.targets[slot];
+        start = profiler.start();
         if (target != null) {
-            if (npc.getNavigator().isNavigating()) {
-                npc.getNavigator().cancelNavigation();
-            }
-            executeCombatLogic(bot);
+            action = FlightRecord.Action.CHASE;
+            setFlag(BotStateStore.WANDERING, false);
+            body.stopNavigating();
+            executeCombatLogic(bot, inventory, target);
+            profiler.record(areaName, TickProfiler.Phase.COMBAT, start);
         } else {
+            action = FlightRecord.Action.WANDER;
             executeWanderingLogic(bot);
+            profiler.record(areaName, TickProfiler.Phase.WANDER, start);
         }
 
-        applyMovement(bot);
-    }
+        start = profiler.start();
+        applyMovement(bot, target);
+        turnHead(bot);
+        profiler.record(areaName, TickProfiler.Phase.MOVEMENT, start);
+
+        if (recorder.isEnabled()) {
+            bot.getLocation(scratchLocation);
+            recorder.record(body.getId(), scratchLocation, target, bot.getHealth(), action);
+        }
 
-    private void updateCooldowns() {
-        if (attackCooldown > 0) attackCooldown--;
-        if (jumpCooldown > 0) jumpCooldown--;
-        if (retargetCooldown > 0) retargetCooldown--;
-        if (rodCooldown > 0) rodCooldown--;
-        if (potionCooldown > 0) potionCooldown--;
-        if (tridentCooldown > 0) tridentCooldown--;
+        tickEvent.end();
+        if (tickEvent.shouldCommit()) {
+            tickEvent.setBot(areaName, kitName, body.getId());
+            tickEvent.inCombat = target != null;
+            tickEvent.commit();
+        }
     }
 
-    private void checkTotemUsage(Player bot) {
+    private void checkTotemUsage(LivingEntity bot, PlayerInventory inventory) {
         double healthPercent = bot.getHealth() / bot.getMaxHealth();
 
         if (healthPercent < 0.3) {
-            ItemStack offhand = bot.getInventory().getItemInOffHand();
+            ItemStack offhand = inventory.getItemInOffHand();
             if (offhand.getType() == Material.TOTEM_OF_UNDYING) {
                 return;
             }
 
-            for (int i = 0; i < bot.getInventory().getSize(); i++) {
-                ItemStack item = bot.getInventory().getItem(i);
+            for (int i = 0; i < inventory.getSize(); i++) {
+                ItemStack item = inventory.getItem(i);
                 if (item != null && item.getType() == Material.TOTEM_OF_UNDYING) {
-                    ItemStack currentOffhand = bot.getInventory().getItemInOffHand();
-                    bot.getInventory().setItemInOffHand(item.clone());
-                    bot.getInventory().setItem(i, currentOffhand);
+                    ItemStack currentOffhand = inventory.getItemInOffHand();
+                    inventory.setItemInOffHand(item.clone());
+                    inventory.setItem(i, currentOffhand);
                     break;
                 }
             }
         }
     }
 
-    private void executeWanderingLogic(Player bot) {
-        Navigator navigator = npc.getNavigator();
-        if (!navigator.isNavigating()) {
-            navigator.setTarget(area.getRandomLocation());
-            navigator.getLocalParameters().speedModifier(1.0f);
+    private void executeWanderingLogic(LivingEntity bot) {
+        NavigationGrid grid = area.getNavigationGrid();
+        bot.getLocation(scratchLocation);
+        int node = grid == null ? -1 : grid.nodeAt(scratchLocation.getBlockX(), scratchLocation.getBlockY(), scratchLocation.getBlockZ());
+
+        if (node < 0 || grid.getWaypointCount() == 0) {
+            // No grid yet, or the bot is off the grid - let the backend's pathfinding walk it back in
+            setFlag(BotStateStore.WANDERING, false);
+            if (!body.isNavigating()) {
+                body.navigateTo(area.getRandomLocation());
+            }
+            return;
+        }
+
+        body.stopNavigating();
+
+        setMovement(0, 0);
+        setFlag(BotStateStore.WANTS_TO_JUMP, false);
+        setFlag(BotStateStore.WANDERING, true);
+
+        if (state.wanderPause[slot] > 0) {
+            state.wanderPause[slot] -= profile.getReactionInterval();
+            return;
+        }
+
+        int waypoint = state.wanderWaypoint[slot];
+        // Waypoints keep their index across grid rebuilds, so only pick a new one if it is gone or cut off
+        if (waypoint < 0 || waypoint >= grid.getWaypointCount() || grid.nextHop(waypoint, node) < 0) {
+            waypoint = pickReachableWaypoint(grid, node);
+            state.wanderWaypoint[slot] = waypoint;
+            if (waypoint < 0) return;
+        }
+
+        if (node == grid.getWaypointNode(waypoint)) {
+            // Arrived - idle for a moment before heading somewhere else
+            state.wanderWaypoint[slot] = -1;
+            state.wanderPause[slot] = 20 + ThreadLocalRandom.current().nextInt(60);
+            return;
+        }
+
+        int next = grid.nextHop(waypoint, node);
+        setMovement(grid.getNodeX(next) + 0.5 - scratchLocation.getX(), grid.getNodeZ(next) + 0.5 - scratchLocation.getZ());
+
+        if (grid.getNodeY(next) > grid.getNodeY(node) && cooldown(BotStateStore.JUMP) <= 0) {
+            setFlag(BotStateStore.WANTS_TO_JUMP, true);
+            setCooldown(BotStateStore.JUMP, 10);
+        }
+
+        if (next != state.wanderHop[slot]) {
+            state.wanderHop[slot] = next;
+            // Look at head height of the next node
+            setLookGoal(grid.getNodeX(next) + 0.5 - scratchLocation.getX(),
+                    grid.getNodeY(next) + 1.6 - scratchLocation.getY() - bot.getEyeHeight(),
+                    grid.getNodeZ(next) + 0.5 - scratchLocation.getZ());
+        }
+    }
+
+    private int pickReachableWaypoint(NavigationGrid grid, int node) {
+        int count = grid.getWaypointCount();
+        int offset = ThreadLocalRandom.current().nextInt(count);
+        for (int i = 0; i < count; i++) {
+            int waypoint = (offset + i) % count;
+            if (grid.getWaypointNode(waypoint) != node && grid.nextHop(waypoint, node) >= 0) {
+                return waypoint;
+            }
         }
+        return -1;
     }
 
-    private void executeCombatLogic(Player bot) {
-        npc.faceLocation(target.getEyeLocation());
+    private void executeCombatLogic(LivingEntity bot, PlayerInventory inventory, LivingEntity target) {
+        faceTarget(bot, target);
 
-        movementVector.zero();
-        wantsToJump = false;
+        setMovement(0, 0);
+        setFlag(BotStateStore.WANTS_TO_JUMP, false);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
 
         Vector directionToTarget = target.getLocation().toVector().subtract(bot.getLocation().toVector()).normalize();
 
-        if (bot.isOnGround() && isFacingWall(bot, directionToTarget)) {
-            if (jumpCooldown <= 0) {
-                wantsToJump = true;
-                jumpCooldown = 20;
+        double attackRange = plugin.getConfigManager().getDouble("bot-behavior.attack-range", 3.5);
+        double distance = getDistanceToTarget(bot, target);
+        Vector moveDirection = distance > attackRange ? getChaseDirection(bot, target, directionToTarget) : directionToTarget;
+
+        if (bot.isOnGround() && isFacingWall(bot, moveDirection)) {
+            if (cooldown(BotStateStore.JUMP) <= 0) {
+                setFlag(BotStateStore.WANTS_TO_JUMP, true);
+                setCooldown(BotStateStore.JUMP, 20);
             } else {
-                movementVector.add(new Vector(-directionToTarget.getZ(), 0, directionToTarget.getX()).normalize());
+                addMovement(new Vector(-moveDirection.getZ(), 0, moveDirection.getX()).normalize());
             }
         }
 
-        double attackRange = plugin.getConfigManager().getDouble("bot-behavior.attack-range", 3.5);
-        double distance = getDistanceToTarget(bot);
+        boolean abilitiesEnabled = inventory != null && plugin.getLoadGovernor().areAbilitiesEnabled();
 
-        if (tridentCooldown <= 0 && distance > 8.0 && distance < 25.0) {
-            if (tryThrowTrident(bot)) {
-                tridentCooldown = plugin.getConfigManager().getInt("combat.trident-cooldown", 80);
+        if (abilitiesEnabled && profile.hasAbility(ProfileManager.Ability.TRIDENT)
+                && cooldown(BotStateStore.TRIDENT) <= 0 && distance > 8.0 && distance < 25.0) {
+            if (tryThrowTrident(bot, inventory, target)) {
+                action = FlightRecord.Action.TRIDENT;
+                setCooldown(BotStateStore.TRIDENT, plugin.getConfigManager().getInt("combat.trident-cooldown", 80));
             }
         }
 
-        if (rodCooldown <= 0 && distance > 3.0 && distance < 10.0) {
-            if (tryFishingRod(bot)) {
-                rodCooldown = plugin.getConfigManager().getInt("combat.rod-cooldown", 60);
+        if (abilitiesEnabled && profile.hasAbility(ProfileManager.Ability.ROD)
+                && cooldown(BotStateStore.ROD) <= 0 && distance > 3.0 && distance < 10.0) {
+            int rodCooldown = plugin.getConfigManager().getInt("combat.rod-cooldown", 60);
+            if (random.nextDouble() >= rodChance) {
+                // A missed roll counts as a use, so unskilled bots don't re-roll every decision
+                setCooldown(BotStateStore.ROD, rodCooldown);
+            } else if (tryFishingRod(bot, inventory, target)) {
+                action = FlightRecord.Action.ROD;
+                setCooldown(BotStateStore.ROD, rodCooldown);
             }
         }
 
-        if (potionCooldown <= 0 && distance > 2.0 && distance < 15.0) {
+        if (abilitiesEnabled && profile.hasAbility(ProfileManager.Ability.POTION)
+                && cooldown(BotStateStore.POTION) <= 0 && distance > 2.0 && distance < 15.0) {
             double healthPercent = bot.getHealth() / bot.getMaxHealth();
             double potionChance = plugin.getConfigManager().getDouble("combat.potion-chance", 0.3);
 
             if (healthPercent < 0.5) {
-                if (tryThrowPotion(bot, true)) {
-                    potionCooldown = plugin.getConfigManager().getInt("combat.potion-cooldown", 100);
+                if (tryThrowPotion(bot, inventory, target, true)) {
+                    action = FlightRecord.Action.POTION;
+                    setCooldown(BotStateStore.POTION, plugin.getConfigManager().getInt("combat.potion-cooldown", 100));
                 }
             } else if (random.nextDouble() < potionChance && distance > 4.0) {
-                if (tryThrowPotion(bot, false)) {
-                    potionCooldown = plugin.getConfigManager().getInt("combat.potion-cooldown", 100);
+                if (tryThrowPotion(bot, inventory, target, false)) {
+                    action = FlightRecord.Action.POTION;
+                    setCooldown(BotStateStore.POTION, plugin.getConfigManager().getInt("combat.potion-cooldown", 100));
                 }
             }
         }
 
         if (distance > attackRange) {
-            movementVector.add(directionToTarget);
+            addMovement(moveDirection);
+        } else if (hasFlag(BotStateStore.COMBO)) {
+            // Keep pressing forward to extend the combo
+            addMovement(directionToTarget);
         } else {
-            double strafeChance = plugin.getConfigManager().getDouble("combat.strafe-chance", 0.7);
             if (random.nextDouble() < strafeChance) {
-                movementVector.add(new Vector(-directionToTarget.getZ(), 0, directionToTarget.getX()).normalize().multiply(random.nextBoolean() ? 1 : -1));
+                addMovement(new Vector(-directionToTarget.getZ(), 0, directionToTarget.getX()).normalize().multiply(random.nextBoolean() ? 1 : -1));
             }
         }
 
+        int attackCooldown = cooldown(BotStateStore.ATTACK);
         if (attackCooldown <= 0 && distance < attackRange) {
-            bot.attack(target);
-            bot.swingMainHand();
-            attackCooldown = plugin.getConfigManager().getInt("combat.attack-delay", 12);
+            body.attack(target);
+            action = FlightRecord.Action.ATTACK;
+            setCooldown(BotStateStore.ATTACK, plugin.getConfigManager().getInt("combat.attack-delay", 12));
+            setFlag(BotStateStore.COMBO, random.nextDouble() < comboChance);
+        } else if (attackCooldown > 0 && attackCooldown <= 6 && distance < attackRange && bot.isOnGround()
+                && cooldown(BotStateStore.JUMP) <= 0 && criticalChance > 0
+                && plugin.getConfigManager().getBoolean("combat.critical-jumps", false)
+                && random.nextDouble() < criticalChance) {
+            // Opt-in: jump shortly before the next swing so it lands as a falling critical hit
+            setFlag(BotStateStore.WANTS_TO_JUMP, true);
+            setCooldown(BotStateStore.JUMP, 10);
+        }
+    }
+
+    /**
+     * Aim the head at the target's eyes. The head turns there over the following
+     * ticks, see {@link #turnHead(LivingEntity)}.
+     */
+    private void faceTarget(LivingEntity bot, LivingEntity target) {
+        bot.getLocation(scratchLocation);
+        target.getLocation(distanceTo);
+        setLookGoal(distanceTo.getX() - scratchLocation.getX(),
+                distanceTo.getY() + target.getEyeHeight() - scratchLocation.getY() - bot.getEyeHeight(),
+                distanceTo.getZ() - scratchLocation.getZ());
+    }
+
+    /**
+     * Store the rotation that looks along the given offset from the bot's eyes
+     */
+    private void setLookGoal(double dx, double dy, double dz) {
+        state.lookYaw[slot] = (float) Math.toDegrees(Math.atan2(-dx, dz));
+        state.lookPitch[slot] = (float) -Math.toDegrees(Math.atan2(dy, Math.sqrt(dx * dx + dz * dz)));
+    }
+
+    /**
+     * Turn the head one tick's worth towards the stored goal, at most max-turn-speed
+     * degrees per tick. Runs every tick, also between decisions, so the head moves
+     * smoothly. Changes below the threshold are skipped, since every rotation is a
+     * packet to every viewer.
+     */
+    private void turnHead(LivingEntity bot) {
+        float goalYaw = state.lookYaw[slot];
+        if (Float.isNaN(goalYaw)) return;
+
+        bot.getLocation(scratchLocation);
+        float yawDelta = Location.normalizeYaw(goalYaw - scratchLocation.getYaw());
+        float pitchDelta = state.lookPitch[slot] - scratchLocation.getPitch();
+        double threshold = plugin.getConfigManager().getDouble("movement.rotation-threshold", 2.0);
+        if (Math.abs(yawDelta) < threshold && Math.abs(pitchDelta) < threshold) {
+            state.rotationSuppressed++;
+            return;
+        }
+
+        float maxStep = (float) plugin.getConfigManager().getDouble("movement.max-turn-speed", 40.0);
+        float yaw = scratchLocation.getYaw() + Math.max(-maxStep, Math.min(maxStep, yawDelta));
+        float pitch = scratchLocation.getPitch() + Math.max(-maxStep, Math.min(maxStep, pitchDelta));
+        bot.setRotation(yaw, pitch);
+        state.rotationSent++;
+    }
+
+    /**
+     * Direction to walk while chasing. Follows the target's shared flow field when the
+     * area has a navigation grid, so bots route around walls instead of running into them.
+     */
+    private Vector getChaseDirection(LivingEntity bot, LivingEntity target, Vector directionToTarget) {
+        FlowField field = area.getFlowField(target);
+        if (field == null) return directionToTarget;
+
+        NavigationGrid grid = field.getGrid();
+        bot.getLocation(scratchLocation);
+        int node = grid.nodeAt(scratchLocation.getBlockX(), scratchLocation.getBlockY(), scratchLocation.getBlockZ());
+        int next = field.next(node);
+        if (next < 0 || next == node) return directionToTarget;
+
+        Vector direction = new Vector(grid.getNodeX(next) + 0.5 - scratchLocation.getX(), 0,
+                grid.getNodeZ(next) + 0.5 - scratchLocation.getZ());
+        if (direction.lengthSquared() < 1.0E-4) return directionToTarget;
+
+        if (grid.getNodeY(next) > grid.getNodeY(node) && bot.isOnGround() && cooldown(BotStateStore.JUMP) <= 0) {
+            setFlag(BotStateStore.WANTS_TO_JUMP, true);
+            setCooldown(BotStateStore.JUMP, 10);
         }
+        return direction.normalize();
     }
 
-    private boolean tryFishingRod(Player bot) {
-        ItemStack rod = findItemInInventory(bot, Material.FISHING_ROD);
+    private boolean tryFishingRod(LivingEntity bot, PlayerInventory inventory, LivingEntity target) {
+        ItemStack rod = findItemInInventory(inventory, Material.FISHING_ROD);
         if (rod == null) return false;
 
-        ItemStack currentItem = bot.getInventory().getItemInMainHand();
-        int rodSlot = bot.getInventory().first(Material.FISHING_ROD);
+        ItemStack currentItem = inventory.getItemInMainHand();
+        int rodSlot = inventory.first(Material.FISHING_ROD);
 
         if (rodSlot == -1) return false;
 
-        bot.getInventory().setItemInMainHand(rod);
+        inventory.setItemInMainHand(rod);
 
         Vector direction = target.getLocation().toVector().subtract(bot.getLocation().toVector()).normalize();
         bot.launchProjectile(org.bukkit.entity.FishHook.class, direction.multiply(1.5));
 
         plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            if (bot.isValid() && npc.isSpawned()) {
-                bot.getInventory().setItemInMainHand(currentItem);
+            if (bot.isValid() && body.isSpawned()) {
+                inventory.setItemInMainHand(currentItem);
             }
         }, 10L);
 
         return true;
     }
 
-    private boolean tryThrowPotion(Player bot, boolean healing) {
-        ItemStack potion = healing ? findHealingPotion(bot) : findHarmingPotion(bot);
+    private boolean tryThrowPotion(LivingEntity bot, PlayerInventory inventory, LivingEntity target, boolean healing) {
+        ItemStack potion = healing ? findHealingPotion(inventory) : findHarmingPotion(inventory);
         if (potion == null) return false;
 
         Vector direction;
@@ -214,25 +474,25 @@ public class BotAI {
 
         potion.setAmount(potion.getAmount() - 1);
         if (potion.getAmount() <= 0) {
-            int slot = findPotionSlot(bot, healing);
+            int slot = findPotionSlot(inventory, healing);
             if (slot != -1) {
-                bot.getInventory().setItem(slot, null);
+                inventory.setItem(slot, null);
             }
         }
 
         return true;
     }
 
-    private boolean tryThrowTrident(Player bot) {
-        ItemStack trident = findItemInInventory(bot, Material.TRIDENT);
+    private boolean tryThrowTrident(LivingEntity bot, PlayerInventory inventory, LivingEntity target) {
+        ItemStack trident = findItemInInventory(inventory, Material.TRIDENT);
         if (trident == null) return false;
 
-        ItemStack currentItem = bot.getInventory().getItemInMainHand();
-        int tridentSlot = bot.getInventory().first(Material.TRIDENT);
+        ItemStack currentItem = inventory.getItemInMainHand();
+        int tridentSlot = inventory.first(Material.TRIDENT);
 
         if (tridentSlot == -1) return false;
 
-        bot.getInventory().setItemInMainHand(trident);
+        inventory.setItemInMainHand(trident);
 
         Vector direction = target.getEyeLocation().toVector()
                 .subtract(bot.getEyeLocation().toVector())
@@ -242,19 +502,19 @@ public class BotAI {
         org.bukkit.entity.Trident thrown = bot.launchProjectile(org.bukkit.entity.Trident.class, direction);
         thrown.setPickupStatus(org.bukkit.entity.AbstractArrow.PickupStatus.CREATIVE_ONLY);
 
-        bot.getInventory().setItem(tridentSlot, null);
+        inventory.setItem(tridentSlot, null);
 
         plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            if (bot.isValid() && npc.isSpawned()) {
-                bot.getInventory().setItemInMainHand(currentItem);
+            if (bot.isValid() && body.isSpawned()) {
+                inventory.setItemInMainHand(currentItem);
             }
         }, 5L);
 
         return true;
     }
 
-    private ItemStack findItemInInventory(Player bot, Material material) {
-        for (ItemStack item : bot.getInventory().getContents()) {
+    private ItemStack findItemInInventory(PlayerInventory inventory, Material material) {
+        for (ItemStack item : inventory.getContents()) {
             if (item != null && item.getType() == material) {
                 return item;
             }
@@ -262,8 +522,8 @@ public class BotAI {
         return null;
     }
 
-    private ItemStack findHealingPotion(Player bot) {
-        for (ItemStack item : bot.getInventory().getContents()) {
+    private ItemStack findHealingPotion(PlayerInventory inventory) {
+        for (ItemStack item : inventory.getContents()) {
             if (item != null && (item.getType() == Material.SPLASH_POTION || item.getType() == Material.LINGERING_POTION)) {
                 if (item.hasItemMeta() && item.getItemMeta() instanceof PotionMeta) {
                     PotionMeta meta = (PotionMeta) item.getItemMeta();
@@ -277,8 +537,8 @@ public class BotAI {
         return null;
     }
 
-    private ItemStack findHarmingPotion(Player bot) {
-        for (ItemStack item : bot.getInventory().getContents()) {
+    private ItemStack findHarmingPotion(PlayerInventory inventory) {
+        for (ItemStack item : inventory.getContents()) {
             if (item != null && (item.getType() == Material.SPLASH_POTION || item.getType() == Material.LINGERING_POTION)) {
                 if (item.hasItemMeta() && item.getItemMeta() instanceof PotionMeta) {
                     PotionMeta meta = (PotionMeta) item.getItemMeta();
@@ -294,9 +554,9 @@ public class BotAI {
         return null;
     }
 
-    private int findPotionSlot(Player bot, boolean healing) {
-        for (int i = 0; i < bot.getInventory().getSize(); i++) {
-            ItemStack item = bot.getInventory().getItem(i);
+    private int findPotionSlot(PlayerInventory inventory, boolean healing) {
+        for (int i = 0; i < inventory.getSize(); i++) {
+            ItemStack item = inventory.getItem(i);
             if (item != null && (item.getType() == Material.SPLASH_POTION || item.getType() == Material.LINGERING_POTION)) {
                 if (item.hasItemMeta() && item.getItemMeta() instanceof PotionMeta) {
                     PotionMeta meta = (PotionMeta) item.getItemMeta();
@@ -312,43 +572,88 @@ public class BotAI {
         return -1;
     }
 
-    private void applyMovement(Player bot) {
-        if (target != null) {
-            double chaseSpeed = plugin.getConfigManager().getDouble("movement.chase-speed", 1.4);
-            double meleeSpeed = plugin.getConfigManager().getDouble("movement.melee-speed", 1.2);
-            double speed = (getDistanceToTarget(bot) > 3.5) ? chaseSpeed : meleeSpeed;
+    private void applyMovement(LivingEntity bot, LivingEntity target) {
+        if (target != null || hasFlag(BotStateStore.WANDERING)) {
+            double speed;
+            if (target != null) {
+                double chaseSpeed = plugin.getConfigManager().getDouble("movement.chase-speed", 1.4);
+                double meleeSpeed = plugin.getConfigManager().getDouble("movement.melee-speed", 1.2);
+                speed = (getDistanceToTarget(bot, target) > 3.5) ? chaseSpeed : meleeSpeed;
+            } else {
+                speed = plugin.getConfigManager().getDouble("movement.wander-speed", 0.8);
+            }
 
             Vector velocity = bot.getVelocity();
+            double currentX = velocity.getX();
+            double currentZ = velocity.getZ();
 
-            if (wantsToJump && bot.isOnGround()) {
+            boolean jumping = hasFlag(BotStateStore.WANTS_TO_JUMP) && bot.isOnGround();
+            if (jumping) {
                 velocity.setY(0.42);
+                setFlag(BotStateStore.WANTS_TO_JUMP, false);
             }
 
+            double moveX = state.moveX[slot];
+            double moveZ = state.moveZ[slot];
             if (bot.isOnGround()) {
-                if (movementVector.lengthSquared() > 0) {
-                    movementVector.normalize().multiply(0.22 * speed);
+                double length = Math.sqrt(moveX * moveX + moveZ * moveZ);
+                if (length > 0) {
+                    moveX = moveX / length * 0.22 * speed;
+                    moveZ = moveZ / length * 0.22 * speed;
                 }
-                velocity.setX(movementVector.getX());
-                velocity.setZ(movementVector.getZ());
+                velocity.setX(moveX);
+                velocity.setZ(moveZ);
             } else {
-                Vector airControl = new Vector(movementVector.getX(), 0, movementVector.getZ()).multiply(0.05);
-                velocity.add(airControl);
+                velocity.setX(velocity.getX() + moveX * 0.05);
+                velocity.setZ(velocity.getZ() + moveZ * 0.05);
             }
 
+            // Every setVelocity sends a packet to every viewer; skip it when the entity
+            // already moves that way, e.g. standing in melee, pausing, or falling without input
+            double epsilon = plugin.getConfigManager().getDouble("movement.velocity-epsilon", 0.003);
+            if (!jumping && Math.abs(velocity.getX() - currentX) < epsilon && Math.abs(velocity.getZ() - currentZ) < epsilon) {
+                state.velocitySuppressed++;
+                return;
+            }
             bot.setVelocity(velocity);
+            state.velocitySent++;
         }
     }
 
-    private void updateTarget(Player bot) {
-        if (retargetCooldown > 0) return;
-        retargetCooldown = 20;
-
-        if (target != null && (target.isDead() || !target.isValid() || getDistanceToTarget(bot) > 32)) {
-            botManager.releaseTarget(npc.getUniqueId());
-            target = null;
+    /**
+     * Drop the current target once it dies, despawns, or gets out of range.
+     * Runs every tick but only touches the target's position.
+     */
+    private void validateTarget(LivingEntity bot) {
+        LivingEntity target = state.targets[slot];
+        if (target == null) return;
+        if (target.isDead() || !target.isValid() || getDistanceToTarget(bot, target) > 32) {
+            botManager.releaseClaim(body.getUniqueId());
+            state.targets[slot] = null;
+            requestRetarget();
         }
+    }
+
+    /**
+     * Ask this bot to re-evaluate its target on its next tick. Called by
+     * {@link BotManager} when something relevant to this bot has changed.
+     */
+    public void requestRetarget() {
+        if (!state.isValid(handle)) return;
+        setFlag(BotStateStore.RETARGET_REQUESTED, true);
+    }
+
+    private void updateTarget(LivingEntity bot) {
+        LivingEntity target = state.targets[slot];
+        // Idle bots look for a player in range on every decision tick; that is one distance
+        // check per player in the area. Bots that are fighting only retarget on events, with
+        // the periodic sweep as a safety net.
+        boolean idleNearPlayers = target == null && !area.getPlayers().isEmpty();
+        if (!idleNearPlayers && !hasFlag(BotStateStore.RETARGET_REQUESTED) && cooldown(BotStateStore.RETARGET) > 0) return;
+        setFlag(BotStateStore.RETARGET_REQUESTED, false);
+        setCooldown(BotStateStore.RETARGET, profile.getRetargetInterval());
 
-        Optional<Player> bestPlayerTarget = findValidPlayerTarget(bot);
+        Optional<Player> bestPlayerTarget = findValidPlayerTarget(bot, target);
 
         if (bestPlayerTarget.isPresent()) {
             if (!bestPlayerTarget.get().equals(target)) {
@@ -357,52 +662,71 @@ public class BotAI {
             return;
         }
 
-        if (target != null && target.hasMetadata("NPC")) {
-            return;
-        }
-
-        if (plugin.getConfigManager().getBoolean("combat.bot-vs-bot.enabled", true)) {
-            findValidBotTarget(bot).ifPresent(this::forceTarget);
-        }
+        // Bot-vs-bot pairing is handled by the area's matchmaking pass
     }
 
-    private Optional<Player> findValidPlayerTarget(Player bot) {
+    private Optional<Player> findValidPlayerTarget(LivingEntity bot, LivingEntity target) {
         double detectionRange = plugin.getConfigManager().getDouble("bot-behavior.detection-range", 32.0);
-        return bot.getWorld().getPlayers().stream()
-                .filter(p -> p != bot && p.getLocation().distance(bot.getLocation()) < detectionRange)
-                .filter(p -> !p.hasMetadata("NPC"))
-                .filter(p -> p.getGameMode() == GameMode.SURVIVAL || p.getGameMode() == GameMode.ADVENTURE)
-                .filter(botManager::isTargetSlotAvailable)
-                .min(java.util.Comparator.comparingDouble(p -> p.getLocation().distance(bot.getLocation())));
+        double bestDistance = detectionRange * detectionRange;
+        Player best = null;
+
+        bot.getLocation(distanceFrom);
+        for (Player player : area.getPlayers()) {
+            if (player.getGameMode() != GameMode.SURVIVAL && player.getGameMode() != GameMode.ADVENTURE) continue;
+            player.getLocation(distanceTo);
+            if (distanceTo.getWorld() != distanceFrom.getWorld()) continue;
+
+            double distance = distanceFrom.distanceSquared(distanceTo);
+            if (distance < bestDistance && (player.equals(target) || botManager.isTargetSlotAvailable(player))) {
+                best = player;
+                bestDistance = distance;
+            }
+        }
+        return Optional.ofNullable(best);
     }
 
-    private Optional<LivingEntity> findValidBotTarget(Player bot) {
-        double detectionRange = plugin.getConfigManager().getDouble("bot-behavior.detection-range", 32.0);
-        return botManager.getAllBots().stream()
-                .filter(b -> b.getNpc() != null && b.getNpc().isSpawned() && b.getNpc().getEntity() != bot)
-                .map(b -> (LivingEntity) b.getNpc().getEntity())
-                .filter(e -> e.getLocation().distance(bot.getLocation()) < detectionRange)
-                .filter(botManager::isTargetSlotAvailable)
-                .min(java.util.Comparator.comparingDouble(e -> e.getLocation().distance(bot.getLocation())));
+    public void forceTarget(LivingEntity newTarget) {
+        if (!state.isValid(handle)) return;
+        botManager.claimTarget(body.getUniqueId(), newTarget);
+        state.targets[slot] = newTarget;
+
+        TargetAcquiredEvent event = new TargetAcquiredEvent();
+        if (event.shouldCommit()) {
+            event.setBot(area.getName(), kitName, body.getId());
+            event.target = newTarget.getName();
+            event.targetIsBot = newTarget.hasMetadata("NPC");
+            event.commit();
+        }
+        recordEvent(FlightRecord.Action.TARGET);
     }
 
-    public void forceTarget(LivingEntity newTarget) {
-        botManager.claimTarget(npc.getUniqueId(), newTarget);
-        this.target = newTarget;
-        this.retargetCooldown = 100;
+    /**
+     * Write a flight recorder entry for something that happened outside the AI tick
+     */
+    public void recordEvent(FlightRecord.Action event) {
+        LivingEntity bot = body.getEntity();
+        if (!recorder.isEnabled() || bot == null || !body.isSpawned()) return;
+        bot.getLocation(scratchLocation);
+        recorder.record(body.getId(), scratchLocation, getTarget(), bot.getHealth(), event);
     }
 
     public LivingEntity getTarget() {
-        return this.target;
+        return state.isValid(handle) ? state.targets[slot] : null;
     }
 
-    private boolean isFacingWall(Player bot, Vector direction) {
-        Location front = bot.getEyeLocation().add(direction.clone().multiply(0.8));
-        return front.getBlock().getType().isSolid() && !front.getBlock().isPassable();
+    private boolean isFacingWall(LivingEntity bot, Vector direction) {
+        bot.getLocation(scratchLocation);
+        int x = Location.locToBlock(scratchLocation.getX() + direction.getX() * 0.8);
+        int y = Location.locToBlock(scratchLocation.getY() + bot.getEyeHeight() + direction.getY() * 0.8);
+        int z = Location.locToBlock(scratchLocation.getZ() + direction.getZ() * 0.8);
+        return area.isSolid(x, y, z);
     }
 
-    private double getDistanceToTarget(Player bot) {
+    private double getDistanceToTarget(LivingEntity bot, LivingEntity target) {
         if (target == null) return Double.MAX_VALUE;
-        return bot.getLocation().distance(target.getLocation());
+        bot.getLocation(distanceFrom);
+        target.getLocation(distanceTo);
+        if (distanceFrom.getWorld() != distanceTo.getWorld()) return Double.MAX_VALUE;
+        return distanceFrom.distance(distanceTo);
     }
 }
\ No newline at end of file
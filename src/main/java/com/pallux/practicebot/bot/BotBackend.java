@@ -0,0 +1,100 @@
+package com.pallux.practicebot.bot;
+
+import com.pallux.practicebot.PracticeBot;
+import com.pallux.practicebot.managers.KitManager;
+import org.bukkit.Location;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * The body a bot fights with. The AI only reaches its bot through this, so a bot
+ * can be a full Citizens player NPC or a much cheaper vanilla mob. One instance
+ * per bot; must only be used on the main thread.
+ */
+public interface BotBackend {
+
+    enum Type {
+        /** Citizens player NPC: looks like a player and uses the whole kit, including rods, potions and tridents */
+        CITIZENS,
+        /** Plain mob wearing the kit's armor and held items. No tab list entry, fake connection, skin or inventory. */
+        MOB;
+
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * The type with this name, or null if there is none
+         */
+        public static Type fromName(String name) {
+            for (Type type : values()) {
+                if (type.getName().equalsIgnoreCase(name)) return type;
+            }
+            return null;
+        }
+    }
+
+    static BotBackend create(PracticeBot plugin, Type type) {
+        return switch (type) {
+            case CITIZENS -> new CitizensBackend(plugin);
+            case MOB -> new MobBackend(plugin);
+        };
+    }
+
+    Type getType();
+
+    /**
+     * Put the bot into the world. Returns false if it couldn't be spawned.
+     */
+    boolean spawn(String name, Location location);
+
+    boolean isSpawned();
+
+    /**
+     * The bot's entity, or null if it isn't spawned
+     */
+    LivingEntity getEntity();
+
+    /**
+     * Stable id of the bot, used for target claims. Valid once spawned.
+     */
+    UUID getUniqueId();
+
+    /**
+     * Numeric id of the bot for the flight recorder and JFR events, -1 if not spawned
+     */
+    int getId();
+
+    /**
+     * Walk to a location with the backend's own pathfinding
+     */
+    void navigateTo(Location location);
+
+    boolean isNavigating();
+
+    void stopNavigating();
+
+    /**
+     * Hit the target with whatever the bot is holding and swing its arm
+     */
+    void attack(LivingEntity target);
+
+    /**
+     * The bot's full inventory, or null if it only wears equipment. Rods, potions,
+     * tridents and totems need an inventory.
+     */
+    PlayerInventory getInventory();
+
+    /**
+     * Dress the bot in a kit
+     */
+    void equip(KitManager.Kit kit);
+
+    /**
+     * Remove the bot from the world for good
+     */
+    void despawn();
+}
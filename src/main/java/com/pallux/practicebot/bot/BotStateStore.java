@@ -0,0 +1,256 @@
+package com.pallux.practicebot.bot;
+
+import com.pallux.practicebot.PracticeBot;
+import com.pallux.practicebot.utils.TickProfiler;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Arrays;
+
+/**
+ * Dense struct-of-arrays store for the per-bot AI state, addressed by generational
+ * int handles.
+ *
+ * Cooldowns, flags, movement and wander state of every bot live in shared primitive
+ * arrays indexed by slot, so the per-tick cooldown pass walks one contiguous int array
+ * instead of chasing one small object per bot. The store only holds the per-tick
+ * state; each bot still has its {@link PracticeBotEntity}, {@link BotAI} and backend.
+ * A handle packs the slot with a generation counter; freeing a slot bumps its generation,
+ * so a stale handle held by a despawned bot can never address the slot's next owner.
+ *
+ * All bots are ticked from one global task instead of one AI and one hologram
+ * task per bot; bots whose world is suspended (see {@link com.pallux.practicebot.managers.WorldGroup})
+ * are skipped. Must only be used on the main thread.
+ */
+public class BotStateStore {
+
+    static final int ATTACK = 0;
+    static final int JUMP = 1;
+    static final int RETARGET = 2;
+    static final int ROD = 3;
+    static final int POTION = 4;
+    static final int TRIDENT = 5;
+    static final int COOLDOWNS = 6;
+
+    static final byte LIVE = 1;
+    static final byte RETARGET_REQUESTED = 1 << 1;
+    static final byte WANTS_TO_JUMP = 1 << 2;
+    static final byte WANDERING = 1 << 3;
+    static final byte COMBO = 1 << 4;
+
+    private static final int SLOT_BITS = 20;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    private static final int HOLOGRAM_INTERVAL = 20;
+
+    private final PracticeBot plugin;
+    private BukkitTask task;
+
+    int[] cooldowns;
+    byte[] flags;
+    double[] moveX;
+    double[] moveZ;
+    int[] wanderWaypoint;
+    int[] wanderHop;
+    int[] wanderPause;
+    // Where the head should end up; NaN when the bot has nowhere to look
+    float[] lookYaw;
+    float[] lookPitch;
+    LivingEntity[] targets;
+    private int[] generations;
+    private BotAI[] ais;
+    private PracticeBotEntity[] entities;
+
+    private int[] freeSlots;
+    private int freeCount = 0;
+    private int highWater = 0;
+    private int live = 0;
+
+    long velocitySent;
+    long velocitySuppressed;
+    long rotationSent;
+    long rotationSuppressed;
+    private long botTicks;
+
+    public BotStateStore(PracticeBot plugin) {
+        this.plugin = plugin;
+        resize(64);
+    }
+
+    private void resize(int capacity) {
+        cooldowns = grow(cooldowns, capacity * COOLDOWNS);
+        flags = flags == null ? new byte[capacity] : Arrays.copyOf(flags, capacity);
+        moveX = moveX == null ? new double[capacity] : Arrays.copyOf(moveX, capacity);
+        moveZ = moveZ == null ? new double[capacity] : Arrays.copyOf(moveZ, capacity);
+        wanderWaypoint = grow(wanderWaypoint, capacity);
+        wanderHop = grow(wanderHop, capacity);
+        wanderPause = grow(wanderPause, capacity);
+        lookYaw = lookYaw == null ? new float[capacity] : Arrays.copyOf(lookYaw, capacity);
+        lookPitch = lookPitch == null ? new float[capacity] : Arrays.copyOf(lookPitch, capacity);
+        generations = grow(generations, capacity);
+        freeSlots = grow(freeSlots, capacity);
+        targets = targets == null ? new LivingEntity[capacity] : Arrays.copyOf(targets, capacity);
+        ais = ais == null ? new BotAI[capacity] : Arrays.copyOf(ais, capacity);
+        entities = entities == null ? new PracticeBotEntity[capacity] : Arrays.copyOf(entities, capacity);
+    }
+
+    private static int[] grow(int[] array, int length) {
+        return array == null ? new int[length] : Arrays.copyOf(array, length);
+    }
+
+    /**
+     * Reserve a slot for a bot and return its handle
+     */
+    public int allocate(PracticeBotEntity entity) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (highWater == flags.length) {
+                resize(flags.length * 2);
+            }
+            slot = highWater++;
+        }
+
+        Arrays.fill(cooldowns, slot * COOLDOWNS, slot * COOLDOWNS + COOLDOWNS, 0);
+        flags[slot] = LIVE;
+        moveX[slot] = 0;
+        moveZ[slot] = 0;
+        wanderWaypoint[slot] = -1;
+        wanderHop[slot] = -1;
+        wanderPause[slot] = 0;
+        lookYaw[slot] = Float.NaN;
+        lookPitch[slot] = Float.NaN;
+        targets[slot] = null;
+        ais[slot] = null;
+        entities[slot] = entity;
+        live++;
+        start();
+        return (generations[slot] << SLOT_BITS) | slot;
+    }
+
+    /**
+     * Free a bot's slot. Stale handles are ignored.
+     */
+    public void release(int handle) {
+        if (!isValid(handle)) return;
+        int slot = slotOf(handle);
+        flags[slot] = 0;
+        targets[slot] = null;
+        ais[slot] = null;
+        entities[slot] = null;
+        generations[slot] = (generations[slot] + 1) & (-1 >>> SLOT_BITS);
+        freeSlots[freeCount++] = slot;
+        live--;
+    }
+
+    void attach(int handle, BotAI ai) {
+        if (isValid(handle)) ais[slotOf(handle)] = ai;
+    }
+
+    public boolean isValid(int handle) {
+        int slot = slotOf(handle);
+        return handle >= 0 && slot < highWater && (flags[slot] & LIVE) != 0
+                && generations[slot] == handle >>> SLOT_BITS;
+    }
+
+    static int slotOf(int handle) {
+        return handle & SLOT_MASK;
+    }
+
+    private void start() {
+        if (task != null) return;
+        task = new BukkitRunnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }.runTaskTimer(plugin, 1L, 1L);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void tick() {
+        TickProfiler profiler = plugin.getTickProfiler();
+        long start = profiler.start();
+        int end = highWater * COOLDOWNS;
+        for (int i = 0; i < end; i++) {
+            int cooldown = cooldowns[i];
+            cooldowns[i] = cooldown > 0 ? cooldown - 1 : 0;
+        }
+        profiler.record(TickProfiler.GLOBAL, TickProfiler.Phase.COOLDOWNS, start);
+
+        int currentTick = plugin.getServer().getCurrentTick();
+        boolean holograms = plugin.getConfigManager().getBoolean("hologram.enabled", true);
+        for (int slot = 0; slot < highWater; slot++) {
+            if ((flags[slot] & LIVE) == 0) continue;
+            // Bots in worlds without players wait until someone arrives
+            if (!entities[slot].getArea().isWorldActive()) continue;
+            BotAI ai = ais[slot];
+            if (ai != null) {
+                ai.tick(currentTick);
+                botTicks++;
+            }
+            // The AI may have killed or despawned the bot
+            PracticeBotEntity entity = entities[slot];
+            if (holograms && entity != null && (slot + currentTick) % HOLOGRAM_INTERVAL == 0) {
+                entity.tickHologram();
+            }
+        }
+    }
+
+    /**
+     * Velocity packets sent per bot per second since the counters were last reset
+     */
+    public double getVelocitySentRate() {
+        return botTicks == 0 ? 0 : velocitySent * 20.0 / botTicks;
+    }
+
+    /**
+     * Velocity packets skipped because the bot already moved that way, per bot per second
+     */
+    public double getVelocitySuppressedRate() {
+        return botTicks == 0 ? 0 : velocitySuppressed * 20.0 / botTicks;
+    }
+
+    /**
+     * Head rotations applied per bot per second since the counters were last reset
+     */
+    public double getRotationSentRate() {
+        return botTicks == 0 ? 0 : rotationSent * 20.0 / botTicks;
+    }
+
+    /**
+     * Head rotations skipped because the bot already faced its target closely enough, per bot per second
+     */
+    public double getRotationSuppressedRate() {
+        return botTicks == 0 ? 0 : rotationSuppressed * 20.0 / botTicks;
+    }
+
+    public void resetPacketCounters() {
+        velocitySent = 0;
+        velocitySuppressed = 0;
+        rotationSent = 0;
+        rotationSuppressed = 0;
+        botTicks = 0;
+    }
+
+    public int getLiveCount() { return live; }
+    public int getCapacity() { return flags.length; }
+
+    /**
+     * Approximate size of the store's arrays, assuming compressed oops. This is only the
+     * store itself, not the bots' AI objects, entities or backends.
+     */
+    public long getArrayBytes() {
+        int referenceSize = 4;
+        int bytesPerSlot = COOLDOWNS * Integer.BYTES + 1 + 2 * Double.BYTES + 3 * Integer.BYTES
+                + Integer.BYTES + Integer.BYTES + 2 * Float.BYTES + 3 * referenceSize;
+        return (long) getCapacity() * bytesPerSlot;
+    }
+}
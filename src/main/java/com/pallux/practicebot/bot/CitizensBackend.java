@@ -0,0 +1,114 @@
+package com.pallux.practicebot.bot;
+
+import com.pallux.practicebot.PracticeBot;
+import com.pallux.practicebot.managers.KitManager;
+import net.citizensnpcs.api.ai.Navigator;
+import net.citizensnpcs.api.npc.NPC;
+import org.bukkit.Location;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.util.UUID;
+
+/**
+ * Bot backed by a Citizens player NPC in the plugin's memory registry
+ */
+public class CitizensBackend implements BotBackend {
+
+    private final PracticeBot plugin;
+    private NPC npc;
+
+    CitizensBackend(PracticeBot plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public Type getType() { return Type.CITIZENS; }
+
+    @Override
+    public boolean spawn(String name, Location location) {
+        npc = plugin.getNpcRegistry().createNPC(EntityType.PLAYER, name);
+        npc.setProtected(false);
+
+        // Add our custom trait to "tag" this NPC so we can identify it later
+        npc.getOrAddTrait(PracticeBotTrait.class);
+
+        // Citizens finishes the spawn by itself once the chunk is loaded
+        npc.spawn(location);
+        return true;
+    }
+
+    @Override
+    public boolean isSpawned() {
+        return npc != null && npc.isSpawned();
+    }
+
+    @Override
+    public LivingEntity getEntity() {
+        return npc != null && npc.getEntity() instanceof LivingEntity entity ? entity : null;
+    }
+
+    @Override
+    public UUID getUniqueId() {
+        return npc != null ? npc.getUniqueId() : null;
+    }
+
+    @Override
+    public int getId() {
+        return npc != null ? npc.getId() : -1;
+    }
+
+    @Override
+    public void navigateTo(Location location) {
+        Navigator navigator = npc.getNavigator();
+        navigator.setTarget(location);
+        navigator.getLocalParameters().speedModifier(1.0f);
+    }
+
+    @Override
+    public boolean isNavigating() {
+        return npc != null && npc.getNavigator().isNavigating();
+    }
+
+    @Override
+    public void stopNavigating() {
+        if (isNavigating()) {
+            npc.getNavigator().cancelNavigation();
+        }
+    }
+
+    @Override
+    public void attack(LivingEntity target) {
+        if (npc.getEntity() instanceof Player bot) {
+            bot.attack(target);
+            bot.swingMainHand();
+        }
+    }
+
+    @Override
+    public PlayerInventory getInventory() {
+        return npc != null && npc.getEntity() instanceof Player bot ? bot.getInventory() : null;
+    }
+
+    @Override
+    public void equip(KitManager.Kit kit) {
+        if (npc.getEntity() instanceof Player bot) {
+            kit.apply(bot);
+        }
+    }
+
+    @Override
+    public void despawn() {
+        if (npc == null) return;
+        try {
+            if (npc.isSpawned()) {
+                npc.despawn();
+            }
+            npc.destroy();
+        } finally {
+            npc = null;
+        }
+    }
+}
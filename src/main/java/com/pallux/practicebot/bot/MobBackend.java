@@ -0,0 +1,152 @@
+package com.pallux.practicebot.bot;
+
+import com.pallux.practicebot.PracticeBot;
+import com.pallux.practicebot.managers.KitManager;
+import org.bukkit.Location;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.attribute.AttributeModifier;
+import org.bukkit.entity.AbstractSkeleton;
+import org.bukkit.entity.Ageable;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Mob;
+import org.bukkit.entity.Zombie;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.metadata.FixedMetadataValue;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Bot backed by a plain Paper mob, by default a zombie. The mob's own goals are
+ * removed so only the bot AI moves it. It wears the kit's armor, off hand and first
+ * hotbar item, and has no inventory, so rods, potions, tridents and totems are
+ * out of its repertoire.
+ *
+ * The mob is tagged with "NPC" metadata like Citizens NPCs, so everything that
+ * tells bots from real players treats it as a bot, and it is never saved with
+ * the world. When its chunk unloads the body is gone for good and the
+ * {@link com.pallux.practicebot.managers.BotManager} tears the bot down; it also
+ * stops the body from converting, e.g. into a drowned.
+ */
+public class MobBackend implements BotBackend {
+
+    private final PracticeBot plugin;
+    private Mob mob;
+
+    MobBackend(PracticeBot plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public Type getType() { return Type.MOB; }
+
+    @Override
+    public boolean spawn(String name, Location location) {
+        Class<? extends Entity> entityClass = getEntityType().getEntityClass();
+        Entity entity = location.getWorld().spawn(location, entityClass, spawned -> {
+            Mob created = (Mob) spawned;
+            created.setPersistent(false);
+            created.setRemoveWhenFarAway(false);
+            created.setCanPickupItems(false);
+            created.setMetadata("NPC", new FixedMetadataValue(plugin, true));
+            if (created instanceof Ageable ageable) ageable.setAdult();
+            if (created instanceof Zombie zombie) {
+                zombie.setShouldBurnInDay(false);
+                disableReinforcements(zombie);
+            }
+            if (created instanceof AbstractSkeleton skeleton) skeleton.setShouldBurnInDay(false);
+        });
+        mob = (Mob) entity;
+        plugin.getServer().getMobGoals().removeAllGoals(mob);
+        return mob.isValid();
+    }
+
+    /**
+     * Keep a hit zombie from calling vanilla reinforcements into the arena. Spawning
+     * already rolled a random bonus modifier, so that goes too.
+     */
+    private void disableReinforcements(Zombie zombie) {
+        AttributeInstance reinforcements = zombie.getAttribute(Attribute.ZOMBIE_SPAWN_REINFORCEMENTS);
+        if (reinforcements == null) return;
+        for (AttributeModifier modifier : reinforcements.getModifiers()) {
+            reinforcements.removeModifier(modifier);
+        }
+        reinforcements.setBaseValue(0.0);
+    }
+
+    private EntityType getEntityType() {
+        String configured = plugin.getConfigManager().getString("mob-backend.entity-type", "ZOMBIE");
+        try {
+            EntityType type = EntityType.valueOf(configured.toUpperCase(Locale.ROOT));
+            if (type.getEntityClass() != null && Mob.class.isAssignableFrom(type.getEntityClass())) {
+                return type;
+            }
+        } catch (IllegalArgumentException ignored) {
+        }
+        plugin.getLogger().warning("mob-backend.entity-type '" + configured + "' is not a mob. Defaulting to ZOMBIE.");
+        return EntityType.ZOMBIE;
+    }
+
+    @Override
+    public boolean isSpawned() {
+        return mob != null && mob.isValid();
+    }
+
+    @Override
+    public LivingEntity getEntity() {
+        return mob;
+    }
+
+    @Override
+    public UUID getUniqueId() {
+        return mob != null ? mob.getUniqueId() : null;
+    }
+
+    @Override
+    public int getId() {
+        return mob != null ? mob.getEntityId() : -1;
+    }
+
+    @Override
+    public void navigateTo(Location location) {
+        mob.getPathfinder().moveTo(location);
+    }
+
+    @Override
+    public boolean isNavigating() {
+        return mob != null && mob.getPathfinder().hasPath();
+    }
+
+    @Override
+    public void stopNavigating() {
+        if (isNavigating()) {
+            mob.getPathfinder().stopPathfinding();
+        }
+    }
+
+    @Override
+    public void attack(LivingEntity target) {
+        mob.attack(target);
+        mob.swingMainHand();
+    }
+
+    @Override
+    public PlayerInventory getInventory() {
+        return null;
+    }
+
+    @Override
+    public void equip(KitManager.Kit kit) {
+        kit.equip(mob.getEquipment());
+    }
+
+    @Override
+    public void despawn() {
+        if (mob == null) return;
+        mob.remove();
+        mob = null;
+    }
+}
@@ -1,170 +1,204 @@
 package com.pallux.practicebot.bot;
 
 import com.pallux.practicebot.PracticeBot;
+import com.pallux.practicebot.jfr.BotDeathEvent;
+import com.pallux.practicebot.jfr.BotSpawnEvent;
+import com.pallux.practicebot.jfr.KitAppliedEvent;
 import com.pallux.practicebot.managers.AreaManager;
 import com.pallux.practicebot.managers.KitManager;
+import com.pallux.practicebot.managers.ProfileManager;
+import com.pallux.practicebot.recorder.FlightRecord;
 import com.pallux.practicebot.utils.ColorUtils;
-import net.citizensnpcs.api.CitizensAPI;
-import net.citizensnpcs.api.npc.NPC;
-import net.citizensnpcs.api.npc.NPCRegistry;
+import com.pallux.practicebot.utils.TickProfiler;
 import net.kyori.adventure.text.Component;
 import org.bukkit.Location;
 import org.bukkit.attribute.Attribute;
-import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 
+/**
+ * A spawned bot: its body, kit and area. The body comes from the area's
+ * {@link BotBackend}. Per-tick state lives in the {@link BotStateStore} under
+ * {@link #getHandle()}, and the store's global loop ticks the AI and hologram,
+ * so a bot owns no scheduler tasks of its own.
+ */
 public class PracticeBotEntity {
 
     private final PracticeBot plugin;
     private final String name;
     private final String kitName;
+    private final ProfileManager.Profile profile;
     private final AreaManager.PracticeArea area;
+    private final BotBackend backend;
 
-    private NPC npc;
     private BotAI ai;
-    private BukkitTask aiTask;
-    private BukkitTask hologramTask;
+    private int handle = -1;
     private boolean isDead = false;
+    private boolean removed = false;
 
-    public PracticeBotEntity(PracticeBot plugin, String kitName, AreaManager.PracticeArea area) {
+    public PracticeBotEntity(PracticeBot plugin, String kitName, ProfileManager.Profile profile, AreaManager.PracticeArea area) {
         this.plugin = plugin;
         this.kitName = kitName;
+        this.profile = profile;
         this.area = area;
+        this.backend = BotBackend.create(plugin, area.getBackend());
         // Simple name without numbers
         this.name = plugin.getConfigManager().getString("bot-name-format", "Practice Bot");
     }
 
     public boolean spawn() {
+        long start = plugin.getTickProfiler().start();
+        BotSpawnEvent spawnEvent = new BotSpawnEvent();
+        spawnEvent.begin();
         try {
-            Location spawnLoc = findSafeLocation(area.getRandomLocation());
+            Location spawnLoc = area.getRandomWalkableLocation();
+            if (spawnLoc == null) {
+                spawnLoc = findSafeLocation(area.getRandomLocation());
+            }
             if (spawnLoc == null) {
                 plugin.getLogger().warning("Could not find safe spawn location for bot!");
                 return false;
             }
 
-            NPCRegistry registry = CitizensAPI.getNPCRegistry();
-            this.npc = registry.createNPC(EntityType.PLAYER, ColorUtils.stripColor(name));
-            this.npc.setProtected(false);
-
-            // Add our custom trait to "tag" this NPC so we can identify it later
-            this.npc.getOrAddTrait(PracticeBotTrait.class);
-
-            npc.spawn(spawnLoc);
+            if (!backend.spawn(ColorUtils.stripColor(name), spawnLoc)) {
+                backend.despawn();
+                return false;
+            }
 
             new BukkitRunnable() {
                 @Override
                 public void run() {
-                    if (npc == null || !npc.isSpawned()) return;
-                    if (!(npc.getEntity() instanceof Player)) return;
-
-                    Player botPlayer = (Player) npc.getEntity();
-                    applySettings(botPlayer);
-
-                    ai = new BotAI(plugin, npc, kitName, area);
-                    startAI();
-                    startHologram();
+                    if (removed) {
+                        // Queued for despawn before it was set up; don't give it an AI
+                        destroyNow();
+                        return;
+                    }
+                    if (!backend.isSpawned() || backend.getEntity() == null) return;
+
+                    long setupStart = plugin.getTickProfiler().start();
+                    applySettings(backend.getEntity());
+
+                    handle = plugin.getBotManager().getStateStore().allocate(PracticeBotEntity.this);
+                    ai = new BotAI(plugin, backend, kitName, profile, area, handle);
+                    ai.recordEvent(FlightRecord.Action.SPAWN);
+                    plugin.getTickProfiler().record(area.getName(), TickProfiler.Phase.SPAWN_SETUP, setupStart);
                 }
             }.runTaskLater(plugin, 1L);
 
+            spawnEvent.success = true;
             return true;
         } catch (Exception e) {
             plugin.getLogger().severe("Error spawning bot: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            plugin.getTickProfiler().record(area.getName(), TickProfiler.Phase.SPAWN, start);
+            spawnEvent.end();
+            if (spawnEvent.shouldCommit()) {
+                spawnEvent.setBot(area.getName(), kitName, backend.getId());
+                spawnEvent.commit();
+            }
         }
     }
 
-    private void applySettings(Player botPlayer) {
+    private void applySettings(LivingEntity entity) {
         KitManager.Kit kit = plugin.getKitManager().getKit(kitName);
-        if (kit != null) kit.apply(botPlayer);
+        if (kit != null) {
+            KitAppliedEvent kitEvent = new KitAppliedEvent();
+            kitEvent.begin();
+            backend.equip(kit);
+            kitEvent.end();
+            if (kitEvent.shouldCommit()) {
+                kitEvent.setBot(area.getName(), kitName, backend.getId());
+                kitEvent.commit();
+            }
+        }
 
         Component displayName = ColorUtils.colorize(name);
-        botPlayer.customName(displayName);
-        botPlayer.setCustomNameVisible(true);
+        entity.customName(displayName);
+        entity.setCustomNameVisible(true);
 
-        botPlayer.getAttribute(Attribute.GENERIC_MAX_HEALTH).setBaseValue(20.0);
-        botPlayer.setHealth(20.0);
+        double maxHealth = 20.0 * profile.getHealthMultiplier();
+        entity.getAttribute(Attribute.GENERIC_MAX_HEALTH).setBaseValue(maxHealth);
+        entity.setHealth(maxHealth);
     }
 
-    public void onDeath() {
+    public void onDeath(Player killer) {
         if (isDead) return;
         this.isDead = true;
+        BotDeathEvent deathEvent = new BotDeathEvent();
+        deathEvent.begin();
+        int botId = backend.getId();
+        if (ai != null) {
+            ai.recordEvent(FlightRecord.Action.DEATH);
+        }
         stopAI();
         plugin.getBotManager().removeBot(this);
 
-        if (npc != null) {
-            try {
-                if (npc.isSpawned()) {
-                    npc.despawn();
-                }
-                npc.destroy();
-            } catch (Exception e) {
-                plugin.getLogger().warning("Error destroying bot on death: " + e.getMessage());
-            }
-            npc = null;
+        try {
+            backend.despawn();
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error destroying bot on death: " + e.getMessage());
+        }
+        deathEvent.end();
+        if (deathEvent.shouldCommit()) {
+            deathEvent.setBot(area.getName(), kitName, botId);
+            deathEvent.killer = killer != null ? killer.getName() : null;
+            deathEvent.commit();
         }
     }
 
     public void despawn() {
         stopAI();
-        if (npc != null) {
-            try {
-                if (npc.isSpawned()) {
-                    npc.despawn();
-                }
-                npc.destroy();
-            } catch (Exception e) {
-                plugin.getLogger().warning("Error despawning bot: " + e.getMessage());
-            }
-            npc = null;
-        }
+        destroyNow();
     }
 
-    private void startAI() {
+    /**
+     * Tear the bot down after its body disappeared on its own, e.g. a mob body that was
+     * discarded with its chunk: free its slot, release its claims, unregister it and
+     * make sure the body doesn't come back.
+     */
+    public void discard() {
         stopAI();
-        aiTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (npc == null || !npc.isSpawned() || isDead) {
-                    cancel();
-                    return;
-                }
-                ai.tick();
-            }
-        }.runTaskTimer(plugin, 2L, 1L);
+        plugin.getBotManager().removeBot(this);
+        destroyNow();
     }
 
-    private void stopAI() {
-        if (aiTask != null) {
-            aiTask.cancel();
-            aiTask = null;
+    /**
+     * Remove the body without freeing its state slot or releasing targets first.
+     * Only for onDisable, where the store and the indexes are torn down in bulk anyway.
+     */
+    public void destroyNow() {
+        try {
+            backend.despawn();
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error despawning bot: " + e.getMessage());
         }
-        if (hologramTask != null) {
-            hologramTask.cancel();
-            hologramTask = null;
+    }
+
+    /**
+     * Stop ticking this bot by freeing its state slot. A bot that hasn't been set up
+     * yet never gets an AI.
+     */
+    public void stopAI() {
+        removed = true;
+        if (handle >= 0) {
+            plugin.getBotManager().getStateStore().release(handle);
+            handle = -1;
         }
     }
 
-    private void startHologram() {
-        if (!plugin.getConfigManager().getBoolean("hologram.enabled", true)) return;
-        hologramTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (npc == null || !npc.isSpawned() || isDead) {
-                    cancel();
-                    return;
-                }
-                updateHologram();
-            }
-        }.runTaskTimer(plugin, 0L, 20L);
+    void tickHologram() {
+        if (!backend.isSpawned() || isDead) return;
+        long start = plugin.getTickProfiler().start();
+        updateHologram();
+        plugin.getTickProfiler().record(area.getName(), TickProfiler.Phase.HOLOGRAM, start);
     }
 
     private void updateHologram() {
-        if (!(npc.getEntity() instanceof LivingEntity)) return;
-        LivingEntity entity = (LivingEntity) npc.getEntity();
+        LivingEntity entity = backend.getEntity();
+        if (entity == null) return;
         String format = plugin.getConfigManager().getString("hologram.format", "&6{name}\n&c❤ {health}/{max_health}");
         String health = String.format("%.1f", entity.getHealth());
         String maxHealth = String.format("%.1f", entity.getAttribute(Attribute.GENERIC_MAX_HEALTH).getValue());
@@ -174,14 +208,13 @@ public class PracticeBotEntity {
 
     private Location findSafeLocation(Location start) {
         if (start == null) return null;
-        Location loc = start.clone();
-        for (int y = loc.getBlockY(); y < loc.getWorld().getMaxHeight(); y++) {
-            loc.setY(y);
-            if (!loc.getBlock().getType().isSolid() && !loc.clone().add(0,1,0).getBlock().getType().isSolid()) {
-                Location below = loc.clone().subtract(0, 1, 0);
-                if (below.getBlock().getType().isSolid()) {
-                    return loc;
-                }
+        int x = start.getBlockX();
+        int z = start.getBlockZ();
+        for (int y = start.getBlockY(); y < start.getWorld().getMaxHeight(); y++) {
+            if (!area.isSolid(x, y, z) && !area.isSolid(x, y + 1, z) && area.isSolid(x, y - 1, z)) {
+                Location loc = start.clone();
+                loc.setY(y);
+                return loc;
             }
         }
         return null;
@@ -189,19 +222,22 @@ public class PracticeBotEntity {
 
     public String getName() { return name; }
     public String getKitName() { return kitName; }
-    public NPC getNpc() { return npc; }
+    public ProfileManager.Profile getProfile() { return profile; }
+    public AreaManager.PracticeArea getArea() { return area; }
+    public BotBackend getBackend() { return backend; }
     public BotAI getAi() { return ai; }
+    public int getHandle() { return handle; }
 
     public double getHealth() {
-        if (npc != null && npc.isSpawned() && npc.getEntity() instanceof LivingEntity) {
-            return ((LivingEntity) npc.getEntity()).getHealth();
+        if (backend.isSpawned()) {
+            return backend.getEntity().getHealth();
         }
         return 0.0;
     }
 
     public double getMaxHealth() {
-        if (npc != null && npc.isSpawned() && npc.getEntity() instanceof LivingEntity) {
-            return ((LivingEntity) npc.getEntity()).getAttribute(Attribute.GENERIC_MAX_HEALTH).getValue();
+        if (backend.isSpawned()) {
+            return backend.getEntity().getAttribute(Attribute.GENERIC_MAX_HEALTH).getValue();
         }
         return 20.0;
     }
@@ -1,7 +1,13 @@
 package com.pallux.practicebot.commands;
 
 import com.pallux.practicebot.PracticeBot;
+import com.pallux.practicebot.bot.BotBackend;
+import com.pallux.practicebot.bot.BotStateStore;
 import com.pallux.practicebot.managers.AreaManager;
+import com.pallux.practicebot.managers.LoadGovernor;
+import com.pallux.practicebot.managers.ProfileManager;
+import com.pallux.practicebot.recorder.FlightRecorder;
+import com.pallux.practicebot.utils.TickProfiler;
 import org.bukkit.Location;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -13,8 +19,15 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.player.PlayerInteractEvent;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 public class AreaCommand implements CommandExecutor, TabCompleter, Listener {
@@ -51,7 +64,14 @@ public class AreaCommand implements CommandExecutor, TabCompleter, Listener {
             case "list" -> handleList(player);
             case "setcount" -> handleSetCount(player, args);
             case "toggle" -> handleToggle(player, args);
+            case "profile" -> handleProfile(player, args);
+            case "backend" -> handleBackend(player, args);
             case "reload" -> handleReload(sender);
+            case "stats" -> handleStats(player, args);
+            case "governor" -> handleGovernor(player);
+            case "repair" -> handleRepair(player);
+            case "recorder" -> handleRecorder(player, args);
+            case "memory" -> handleMemory(player);
             default -> sendHelp(player);
         }
         return true;
@@ -156,20 +176,239 @@ public class AreaCommand implements CommandExecutor, TabCompleter, Listener {
             plugin.getMessageUtils().sendMessage(player, "area.area-not-found", Map.of("area", name));
             return;
         }
-        area.setEnabled(!area.isEnabled());
+        area.setEnabled(!area.isEnabled(), player);
         plugin.getAreaManager().saveArea(area);
         String status = area.isEnabled() ? "enabled" : "disabled";
         plugin.getMessageUtils().sendMessage(player, "area.toggled", Map.of("area", name, "status", status));
     }
 
+    private void handleProfile(Player player, String[] args) {
+        if (args.length < 2) {
+            plugin.getMessageUtils().sendMessage(player, "errors.usage-area-profile");
+            return;
+        }
+        String name = args[1];
+        AreaManager.PracticeArea area = plugin.getAreaManager().getArea(name);
+        if (area == null) {
+            plugin.getMessageUtils().sendMessage(player, "area.area-not-found", Map.of("area", name));
+            return;
+        }
+        List<String> profiles = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            ProfileManager.Profile profile = plugin.getProfileManager().getProfile(args[i]);
+            if (profile == null) {
+                plugin.getMessageUtils().sendMessage(player, "errors.profile-not-found", Map.of("profile", args[i]));
+                return;
+            }
+            profiles.add(profile.getName());
+        }
+        area.setProfiles(profiles);
+        plugin.getAreaManager().saveArea(area);
+        if (profiles.isEmpty()) {
+            plugin.getMessageUtils().sendMessage(player, "area.profiles-cleared", Map.of(
+                    "area", name,
+                    "profile", plugin.getProfileManager().getDefaultProfile().getName()
+            ));
+        } else {
+            plugin.getMessageUtils().sendMessage(player, "area.profiles-set", Map.of("area", name, "profiles", String.join(", ", profiles)));
+        }
+    }
+
+    private void handleBackend(Player player, String[] args) {
+        if (args.length < 3) {
+            plugin.getMessageUtils().sendMessage(player, "errors.usage-area-backend");
+            return;
+        }
+        String name = args[1];
+        AreaManager.PracticeArea area = plugin.getAreaManager().getArea(name);
+        if (area == null) {
+            plugin.getMessageUtils().sendMessage(player, "area.area-not-found", Map.of("area", name));
+            return;
+        }
+        BotBackend.Type backend = BotBackend.Type.fromName(args[2]);
+        if (backend == null) {
+            plugin.getMessageUtils().sendMessage(player, "errors.usage-area-backend");
+            return;
+        }
+        area.setBackend(backend);
+        plugin.getAreaManager().saveArea(area);
+        plugin.getMessageUtils().sendMessage(player, "area.backend-set", Map.of("area", name, "backend", backend.getName()));
+    }
+
     private void handleReload(CommandSender sender) {
         plugin.getConfigManager().reloadAll();
         plugin.getKitManager().loadKits();
-        plugin.getAreaManager().reload();
-        plugin.getMessageUtils().reload();
+        plugin.getProfileManager().loadProfiles();
+        plugin.getAreaManager().reload(sender);
+        plugin.getMessageUtils().reload(plugin.getConfigManager().getMessagesConfig(), plugin.getConfigManager().getMainConfig());
+        plugin.getTickProfiler().reload();
+        plugin.getLoadGovernor().reload();
+        plugin.getFlightRecorder().reload();
+        plugin.getConfigWatcher().reload();
         plugin.getMessageUtils().sendMessage(sender, "general.plugin-reloaded");
     }
 
+    private void handleStats(Player player, String[] args) {
+        TickProfiler profiler = plugin.getTickProfiler();
+        if (!profiler.isEnabled()) {
+            plugin.getMessageUtils().sendMessage(player, "stats.disabled");
+            return;
+        }
+
+        if (args.length >= 2 && args[1].equalsIgnoreCase("dump")) {
+            handleStatsDump(player);
+            return;
+        }
+        if (args.length >= 2 && args[1].equalsIgnoreCase("reset")) {
+            profiler.reset();
+            plugin.getBotManager().getStateStore().resetPacketCounters();
+            plugin.getMessageUtils().sendMessage(player, "stats.reset");
+            return;
+        }
+
+        String filter = args.length >= 2 ? args[1] : null;
+        Map<String, Map<TickProfiler.Phase, TickProfiler.RollingHistogram>> histograms = profiler.getHistograms();
+        if (histograms.isEmpty()) {
+            plugin.getMessageUtils().sendMessage(player, "stats.no-data");
+            return;
+        }
+
+        plugin.getMessageUtils().sendMessageNoPrefix(player, "stats.header");
+        BotStateStore store = plugin.getBotManager().getStateStore();
+        double sent = store.getVelocitySentRate();
+        double suppressed = store.getVelocitySuppressedRate();
+        plugin.getMessageUtils().sendMessageNoPrefix(player, "stats.velocity", Map.of(
+                "before", String.format(Locale.ROOT, "%.1f", sent + suppressed),
+                "after", String.format(Locale.ROOT, "%.1f", sent),
+                "saved", String.format(Locale.ROOT, "%.1f", sent + suppressed == 0 ? 0.0 : suppressed * 100.0 / (sent + suppressed))
+        ));
+        double rotated = store.getRotationSentRate();
+        double held = store.getRotationSuppressedRate();
+        plugin.getMessageUtils().sendMessageNoPrefix(player, "stats.rotation", Map.of(
+                "before", String.format(Locale.ROOT, "%.1f", rotated + held),
+                "after", String.format(Locale.ROOT, "%.1f", rotated),
+                "saved", String.format(Locale.ROOT, "%.1f", rotated + held == 0 ? 0.0 : held * 100.0 / (rotated + held))
+        ));
+        int currentTick = plugin.getServer().getCurrentTick();
+        for (Map.Entry<String, Map<TickProfiler.Phase, TickProfiler.RollingHistogram>> areaEntry : histograms.entrySet()) {
+            if (filter != null && !areaEntry.getKey().equalsIgnoreCase(filter)) continue;
+
+            long nanosPerTick = profiler.getAreaNanosPerTick(areaEntry.getValue());
+            long areaTotal = nanosPerTick * profiler.getTickWindow();
+            plugin.getMessageUtils().sendMessageNoPrefix(player, "stats.area", Map.of(
+                    "area", areaEntry.getKey(),
+                    "total", String.format(Locale.ROOT, "%.3f", nanosPerTick / 1_000_000.0),
+                    "budget", String.format(Locale.ROOT, "%.2f", nanosPerTick / 500_000.0)
+            ));
+
+            for (Map.Entry<TickProfiler.Phase, TickProfiler.RollingHistogram> entry : areaEntry.getValue().entrySet()) {
+                long[] sorted = entry.getValue().sortedSamples();
+                long phaseTotal = entry.getValue().getWindowTotal(currentTick);
+                plugin.getMessageUtils().sendMessageNoPrefix(player, "stats.entry", Map.of(
+                        "phase", entry.getKey().getDisplayName(),
+                        "p50", TickProfiler.formatMicros(TickProfiler.RollingHistogram.percentile(sorted, 0.50)),
+                        "p95", TickProfiler.formatMicros(TickProfiler.RollingHistogram.percentile(sorted, 0.95)),
+                        "p99", TickProfiler.formatMicros(TickProfiler.RollingHistogram.percentile(sorted, 0.99)),
+                        "share", String.format(Locale.ROOT, "%.1f", areaTotal == 0 ? 0.0 : phaseTotal * 100.0 / areaTotal)
+                ));
+            }
+        }
+    }
+
+    private void handleRecorder(Player player, String[] args) {
+        FlightRecorder recorder = plugin.getFlightRecorder();
+        if (!recorder.isEnabled()) {
+            plugin.getMessageUtils().sendMessage(player, "recorder.disabled");
+            return;
+        }
+
+        if (args.length >= 2 && args[1].equalsIgnoreCase("dump")) {
+            String name = "recorder/flight-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".pbfr";
+            recorder.dump(new File(plugin.getDataFolder(), name), count -> {
+                if (count < 0) {
+                    plugin.getMessageUtils().sendMessage(player, "recorder.dump-failed");
+                } else {
+                    plugin.getMessageUtils().sendMessage(player, "recorder.dumped", Map.of(
+                            "file", name,
+                            "records", String.valueOf(count)
+                    ));
+                }
+            });
+            return;
+        }
+
+        plugin.getMessageUtils().sendMessage(player, "recorder.status", Map.of(
+                "records", String.valueOf(recorder.getRecordCount()),
+                "capacity", String.valueOf(recorder.getCapacity()),
+                "written", String.valueOf(recorder.getWritten())
+        ));
+    }
+
+    private void handleMemory(Player player) {
+        BotStateStore store = plugin.getBotManager().getStateStore();
+        plugin.getMessageUtils().sendMessage(player, "memory.store", Map.of(
+                "bots", String.valueOf(store.getLiveCount()),
+                "capacity", String.valueOf(store.getCapacity()),
+                "store_kb", String.format(Locale.ROOT, "%.1f", store.getArrayBytes() / 1024.0)
+        ));
+    }
+
+    private void handleRepair(Player player) {
+        int removed = plugin.repairRegistry();
+        if (removed < 0) {
+            plugin.getMessageUtils().sendMessage(player, "repair.failed");
+            return;
+        }
+        plugin.getMessageUtils().sendMessage(player, "repair.done", Map.of("amount", String.valueOf(removed)));
+    }
+
+    private void handleGovernor(Player player) {
+        LoadGovernor governor = plugin.getLoadGovernor();
+        if (!governor.isEnabled()) {
+            plugin.getMessageUtils().sendMessage(player, "governor.disabled");
+            return;
+        }
+
+        plugin.getMessageUtils().sendMessageNoPrefix(player, "governor.header");
+        plugin.getMessageUtils().sendMessageNoPrefix(player, "governor.state", Map.of(
+                "level", String.valueOf(governor.getLevel()),
+                "max_level", String.valueOf(governor.getMaxLevel()),
+                "mspt", String.format(Locale.ROOT, "%.1f", governor.getLastMspt()),
+                "tps", String.format(Locale.ROOT, "%.1f", governor.getLastTps()),
+                "high", String.format(Locale.ROOT, "%.1f", governor.getHighMspt()),
+                "low", String.format(Locale.ROOT, "%.1f", governor.getLowMspt())
+        ));
+        plugin.getMessageUtils().sendMessageNoPrefix(player, "governor.effects", Map.of(
+                "abilities", governor.areAbilitiesEnabled() ? "<green>enabled</green>" : "<red>disabled</red>",
+                "scale", String.format(Locale.ROOT, "%.0f", governor.getBotScale() * 100)
+        ));
+        for (AreaManager.PracticeArea area : plugin.getAreaManager().getAreas()) {
+            plugin.getMessageUtils().sendMessageNoPrefix(player, "governor.area", Map.of(
+                    "area", area.getName(),
+                    "bots", String.valueOf(area.getActiveBots().size()),
+                    "effective", String.valueOf(area.getEffectiveBotCount()),
+                    "max", String.valueOf(area.getBotCount())
+            ));
+        }
+    }
+
+    private void handleStatsDump(Player player) {
+        String csv = plugin.getTickProfiler().toCsv();
+        File file = new File(plugin.getDataFolder(), "profiler/stats-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv");
+
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                Files.createDirectories(file.getParentFile().toPath());
+                Files.writeString(file.toPath(), csv, StandardCharsets.UTF_8);
+                plugin.getServer().getScheduler().runTask(plugin, () ->
+                        plugin.getMessageUtils().sendMessage(player, "stats.dumped", Map.of("file", "profiler/" + file.getName())));
+            } catch (IOException e) {
+                plugin.getServer().getScheduler().runTask(plugin, () ->
+                        plugin.getMessageUtils().sendMessage(player, "stats.dump-failed", Map.of("error", String.valueOf(e.getMessage()))));
+            }
+        });
+    }
+
     private void sendHelp(Player player) {
         plugin.getMessageUtils().sendMessageNoPrefix(player, "help.header");
         plugin.getMessageUtils().sendMessageNoPrefix(player, "help.tool");
@@ -178,7 +417,14 @@ public class AreaCommand implements CommandExecutor, TabCompleter, Listener {
         plugin.getMessageUtils().sendMessageNoPrefix(player, "help.list");
         plugin.getMessageUtils().sendMessageNoPrefix(player, "help.setcount");
         plugin.getMessageUtils().sendMessageNoPrefix(player, "help.toggle");
+        plugin.getMessageUtils().sendMessageNoPrefix(player, "help.profile");
+        plugin.getMessageUtils().sendMessageNoPrefix(player, "help.backend");
         plugin.getMessageUtils().sendMessageNoPrefix(player, "help.reload");
+        plugin.getMessageUtils().sendMessageNoPrefix(player, "help.stats");
+        plugin.getMessageUtils().sendMessageNoPrefix(player, "help.governor");
+        plugin.getMessageUtils().sendMessageNoPrefix(player, "help.repair");
+        plugin.getMessageUtils().sendMessageNoPrefix(player, "help.recorder");
+        plugin.getMessageUtils().sendMessageNoPrefix(player, "help.memory");
     }
 
     @EventHandler
@@ -208,11 +454,32 @@ public class AreaCommand implements CommandExecutor, TabCompleter, Listener {
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         List<String> completions = new ArrayList<>();
         if (args.length == 1) {
-            return List.of("create", "delete", "tool", "list", "setcount", "toggle", "reload");
+            return List.of("create", "delete", "tool", "list", "setcount", "toggle", "profile", "backend", "reload", "stats", "governor", "repair", "recorder", "memory");
         }
-        if (args.length == 2 && (args[0].equalsIgnoreCase("delete") || args[0].equalsIgnoreCase("setcount") || args[0].equalsIgnoreCase("toggle"))) {
+        if (args.length == 2 && (args[0].equalsIgnoreCase("delete") || args[0].equalsIgnoreCase("setcount")
+                || args[0].equalsIgnoreCase("toggle") || args[0].equalsIgnoreCase("profile")
+                || args[0].equalsIgnoreCase("backend"))) {
             return new ArrayList<>(plugin.getAreaManager().getAreaNames());
         }
+        if (args.length == 3 && args[0].equalsIgnoreCase("backend")) {
+            for (BotBackend.Type type : BotBackend.Type.values()) {
+                completions.add(type.getName());
+            }
+            return completions;
+        }
+        if (args.length >= 3 && args[0].equalsIgnoreCase("profile")) {
+            return new ArrayList<>(plugin.getProfileManager().getProfileNames());
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("recorder")) {
+            completions.add("dump");
+            return completions;
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("stats")) {
+            completions.add("dump");
+            completions.add("reset");
+            completions.addAll(plugin.getAreaManager().getAreaNames());
+            return completions;
+        }
         return completions;
     }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.pallux.practicebot.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A bot being killed and destroyed
+ */
+@Name("com.pallux.practicebot.BotDeath")
+@Label("Bot Death")
+public class BotDeathEvent extends PracticeBotEvent {
+
+    @Label("Killer")
+    public String killer;
+}
@@ -0,0 +1,15 @@
+package com.pallux.practicebot.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Creation and spawning of a bot NPC
+ */
+@Name("com.pallux.practicebot.BotSpawn")
+@Label("Bot Spawn")
+public class BotSpawnEvent extends PracticeBotEvent {
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,23 @@
+package com.pallux.practicebot.jfr;
+
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One AI tick of a single bot. Fires once per bot decision, so it is disabled
+ * by default; enable it in a custom .jfc or with
+ * {@code -XX:StartFlightRecording:com.pallux.practicebot.BotTick#enabled=true}.
+ */
+@Name("com.pallux.practicebot.BotTick")
+@Label("Bot Tick")
+@StackTrace(false)
+@Enabled(false)
+@Threshold("0 ms")
+public class BotTickEvent extends PracticeBotEvent {
+
+    @Label("In Combat")
+    public boolean inCombat;
+}
@@ -0,0 +1,18 @@
+package com.pallux.practicebot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Saving PracticeBot's configuration files to disk
+ */
+@Name("com.pallux.practicebot.ConfigSave")
+@Label("Config Save")
+@Category({"PracticeBot"})
+public class ConfigSaveEvent extends Event {
+
+    @Label("Files")
+    public String files;
+}
@@ -0,0 +1,12 @@
+package com.pallux.practicebot.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A kit being applied to a bot's inventory
+ */
+@Name("com.pallux.practicebot.KitApplied")
+@Label("Kit Applied")
+public class KitAppliedEvent extends PracticeBotEvent {
+}
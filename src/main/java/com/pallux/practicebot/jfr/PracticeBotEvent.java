@@ -0,0 +1,33 @@
+package com.pallux.practicebot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base class for PracticeBot's JDK Flight Recorder events.
+ * Create, begin and commit the event unconditionally and only fill in
+ * the fields when {@link #shouldCommit()} is true - when recording is
+ * off the JIT removes the event entirely.
+ */
+@Category({"PracticeBot"})
+public abstract class PracticeBotEvent extends Event {
+
+    @Label("Area")
+    @Description("Practice area the bot belongs to")
+    protected String area;
+
+    @Label("Kit")
+    protected String kit;
+
+    @Label("Bot Id")
+    @Description("Citizens NPC id of the bot, or the entity id for mob bots")
+    protected int botId;
+
+    public void setBot(String area, String kit, int botId) {
+        this.area = area;
+        this.kit = kit;
+        this.botId = botId;
+    }
+}
@@ -0,0 +1,20 @@
+package com.pallux.practicebot.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A bot claiming a new target
+ */
+@Name("com.pallux.practicebot.TargetAcquired")
+@Label("Target Acquired")
+@StackTrace(false)
+public class TargetAcquiredEvent extends PracticeBotEvent {
+
+    @Label("Target")
+    public String target;
+
+    @Label("Target Is Bot")
+    public boolean targetIsBot;
+}
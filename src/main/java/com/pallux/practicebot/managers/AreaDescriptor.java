@@ -0,0 +1,152 @@
+package com.pallux.practicebot.managers;
+
+import com.pallux.practicebot.bot.BotBackend;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An area as stored in config.yml, parsed once and independent of whether its
+ * world is loaded. {@link AreaManager} turns it into a live {@link AreaManager.PracticeArea}
+ * when the world becomes available.
+ *
+ * Corners are saved as plain x/y/z sections next to the world name. Older configs
+ * stored them as serialized Locations, which are still accepted. The optional
+ * profile list names the bots.yml profiles the area's bots are drawn from, and the
+ * optional backend picks what the bots are made of (Citizens NPCs by default).
+ */
+public final class AreaDescriptor {
+
+    private final String name;
+    private final String worldName;
+    private final double minX;
+    private final double minY;
+    private final double minZ;
+    private final double maxX;
+    private final double maxY;
+    private final double maxZ;
+    private final int botCount;
+    private final boolean enabled;
+    private final List<String> profiles;
+    private final BotBackend.Type backend;
+    private final boolean legacyFormat;
+
+    private AreaDescriptor(String name, String worldName, double[] min, double[] max, int botCount, boolean enabled,
+                           List<String> profiles, BotBackend.Type backend, boolean legacyFormat) {
+        this.name = name;
+        this.worldName = worldName;
+        this.minX = Math.min(min[0], max[0]);
+        this.minY = Math.min(min[1], max[1]);
+        this.minZ = Math.min(min[2], max[2]);
+        this.maxX = Math.max(min[0], max[0]);
+        this.maxY = Math.max(min[1], max[1]);
+        this.maxZ = Math.max(min[2], max[2]);
+        this.botCount = botCount;
+        this.enabled = enabled;
+        this.profiles = List.copyOf(profiles);
+        this.backend = backend;
+        this.legacyFormat = legacyFormat;
+    }
+
+    /**
+     * Parse an area section, throwing IllegalArgumentException with a readable reason if it is invalid
+     */
+    public static AreaDescriptor parse(String name, ConfigurationSection section) {
+        Object worldValue = section.get("world");
+        String worldName = worldValue != null ? worldValue.toString() : null;
+        Object minValue = section.get("min");
+        Object maxValue = section.get("max");
+
+        if ((worldName == null || worldName.isEmpty()) && minValue instanceof Location location && location.getWorld() != null) {
+            worldName = location.getWorld().getName();
+        }
+        if (worldName == null || worldName.isEmpty()) {
+            throw new IllegalArgumentException("'world' is missing");
+        }
+
+        boolean legacy = minValue instanceof Location || maxValue instanceof Location;
+        List<String> profiles = section.isString("profile") ? List.of(section.getString("profile")) : section.getStringList("profiles");
+        BotBackend.Type backend = BotBackend.Type.fromName(section.getString("backend", BotBackend.Type.CITIZENS.getName()));
+        if (backend == null) {
+            throw new IllegalArgumentException("'backend' must be citizens or mob");
+        }
+        return new AreaDescriptor(name, worldName, parseCorner(minValue, "min"), parseCorner(maxValue, "max"),
+                section.getInt("bot-count", 0), section.getBoolean("enabled", false), profiles, backend, legacy);
+    }
+
+    public static AreaDescriptor of(AreaManager.PracticeArea area) {
+        Location min = area.getMin();
+        Location max = area.getMax();
+        return new AreaDescriptor(area.getName(), area.getWorld().getName(),
+                new double[]{min.getX(), min.getY(), min.getZ()},
+                new double[]{max.getX(), max.getY(), max.getZ()},
+                area.getBotCount(), area.isEnabled(), area.getProfiles(), area.getBackend(), false);
+    }
+
+    private static double[] parseCorner(Object value, String key) {
+        if (value instanceof ConfigurationSection section) {
+            if (!section.isSet("x") || !section.isSet("y") || !section.isSet("z")) {
+                throw new IllegalArgumentException("'" + key + "' needs x, y and z");
+            }
+            return new double[]{section.getDouble("x"), section.getDouble("y"), section.getDouble("z")};
+        }
+        if (value instanceof Location location) {
+            return new double[]{location.getX(), location.getY(), location.getZ()};
+        }
+        if (value instanceof Map<?, ?> map
+                && map.get("x") instanceof Number x && map.get("y") instanceof Number y && map.get("z") instanceof Number z) {
+            return new double[]{x.doubleValue(), y.doubleValue(), z.doubleValue()};
+        }
+        throw new IllegalArgumentException("'" + key + "' is missing or invalid");
+    }
+
+    /**
+     * Write this area into its config section in the world-independent form
+     */
+    public void save(ConfigurationSection section) {
+        section.set("world", worldName);
+        section.set("min", null);
+        section.set("max", null);
+        ConfigurationSection min = section.createSection("min");
+        min.set("x", minX);
+        min.set("y", minY);
+        min.set("z", minZ);
+        ConfigurationSection max = section.createSection("max");
+        max.set("x", maxX);
+        max.set("y", maxY);
+        max.set("z", maxZ);
+        section.set("bot-count", botCount);
+        section.set("enabled", enabled);
+        section.set("profile", null);
+        section.set("profiles", profiles.isEmpty() ? null : profiles);
+        section.set("backend", backend == BotBackend.Type.CITIZENS ? null : backend.getName());
+    }
+
+    /**
+     * Whether both describe the same region of the same world
+     */
+    public boolean hasSameBounds(AreaDescriptor other) {
+        return worldName.equals(other.worldName)
+                && minX == other.minX && minY == other.minY && minZ == other.minZ
+                && maxX == other.maxX && maxY == other.maxY && maxZ == other.maxZ;
+    }
+
+    public Location getMin(World world) {
+        return new Location(world, minX, minY, minZ);
+    }
+
+    public Location getMax(World world) {
+        return new Location(world, maxX, maxY, maxZ);
+    }
+
+    public String getName() { return name; }
+    public String getWorldName() { return worldName; }
+    public int getBotCount() { return botCount; }
+    public boolean isEnabled() { return enabled; }
+    public List<String> getProfiles() { return profiles; }
+    public BotBackend.Type getBackend() { return backend; }
+    public boolean isLegacyFormat() { return legacyFormat; }
+}
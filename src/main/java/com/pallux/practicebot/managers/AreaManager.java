@@ -1,28 +1,64 @@
 package com.pallux.practicebot.managers;
 
 import com.pallux.practicebot.PracticeBot;
+import com.pallux.practicebot.bot.BotBackend;
 import com.pallux.practicebot.bot.PracticeBotEntity;
+import com.pallux.practicebot.utils.SnapshotList;
+import com.pallux.practicebot.utils.TickProfiler;
+import com.pallux.practicebot.world.AreaIndex;
+import com.pallux.practicebot.world.FlowField;
+import com.pallux.practicebot.world.FlowFieldCache;
+import com.pallux.practicebot.world.NavigationGrid;
+import com.pallux.practicebot.world.VoxelMap;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
-public class AreaManager {
+public class AreaManager implements Listener {
 
     private final PracticeBot plugin;
     private final Map<String, PracticeArea> areas = new ConcurrentHashMap<>();
+    private final Map<String, AreaDescriptor> descriptors = new ConcurrentHashMap<>();
     private final Map<UUID, Location> pos1Map = new HashMap<>();
     private final Map<UUID, Location> pos2Map = new HashMap<>();
     private BukkitTask managementTask;
+    private BukkitTask matchmakingTask;
+    private Map<UUID, WorldGroup> worldGroups = new HashMap<>();
+    private boolean suspendEmptyWorlds = true;
+    private volatile AreaIndex<PracticeArea> areaIndex = AreaIndex.empty();
+    private final Map<UUID, Set<PracticeArea>> areasByPlayer = new HashMap<>();
+    private final List<MembershipListener> membershipListeners = new ArrayList<>();
 
     public AreaManager(PracticeBot plugin) {
         this.plugin = plugin;
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
         loadAreas();
         // Don't start management immediately - let cleanup happen first
     }
@@ -34,115 +70,344 @@ public class AreaManager {
 
         plugin.getLogger().info("Starting bot management for " + areas.size() + " areas...");
 
+        suspendEmptyWorlds = plugin.getConfigManager().getBoolean("performance.suspend-empty-worlds", true);
+        for (WorldGroup group : worldGroups.values()) {
+            updateWorldActivity(group);
+        }
+
         managementTask = new BukkitRunnable() {
             @Override
             public void run() {
-                for (PracticeArea area : areas.values()) {
-                    if (area.isEnabled()) {
-                        area.manageBots();
+                for (WorldGroup group : worldGroups.values()) {
+                    if (!group.isActive()) continue;
+                    for (PracticeArea area : group.areas()) {
+                        if (area.isEnabled()) {
+                            long start = plugin.getTickProfiler().start();
+                            area.manageBots();
+                            plugin.getTickProfiler().record(area.getName(), TickProfiler.Phase.MANAGE_BOTS, start);
+                        }
                     }
                 }
             }
         }.runTaskTimer(plugin, 20L, 100L); // Start after 1 second, check every 5 seconds
 
+        if (matchmakingTask != null) {
+            matchmakingTask.cancel();
+        }
+        long matchmakingInterval = Math.max(1, plugin.getConfigManager().getInt("combat.bot-vs-bot.matchmaking-interval", 20));
+        matchmakingTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                if (!plugin.getConfigManager().getBoolean("combat.bot-vs-bot.enabled", true)) return;
+                for (WorldGroup group : worldGroups.values()) {
+                    if (!group.isActive()) continue;
+                    for (PracticeArea area : group.areas()) {
+                        if (area.isEnabled()) {
+                            long start = plugin.getTickProfiler().start();
+                            area.runMatchmaking();
+                            plugin.getTickProfiler().record(area.getName(), TickProfiler.Phase.MATCHMAKING, start);
+                        }
+                    }
+                }
+            }
+        }.runTaskTimer(plugin, 40L, matchmakingInterval);
+
         plugin.getLogger().info("Bot management task started successfully!");
     }
 
-    public void shutdown() {
+    private void stopManagement() {
         if (managementTask != null) {
             managementTask.cancel();
             managementTask = null;
         }
+        if (matchmakingTask != null) {
+            matchmakingTask.cancel();
+            matchmakingTask = null;
+        }
+    }
+
+    /**
+     * Suspend or resume a world as its last player leaves or the first one arrives.
+     * Citizens NPCs are not counted, so bots never keep a world awake.
+     */
+    private void updateWorldActivity(WorldGroup group) {
+        boolean active = !suspendEmptyWorlds || group.getPlayerCount() > 0;
+        if (active == group.isActive()) return;
+        group.setActive(active);
+        if (active) {
+            plugin.getLogger().fine("Resuming practice areas in world '" + group.getWorld().getName() + "'.");
+            // Catch up on management right away instead of waiting for the next pass
+            if (managementTask != null) {
+                for (PracticeArea area : group.areas()) {
+                    if (area.isEnabled()) area.manageBots();
+                }
+            }
+        } else {
+            plugin.getLogger().fine("Suspending practice areas in empty world '" + group.getWorld().getName() + "'.");
+        }
+    }
+
+    /**
+     * Add or remove a real player from a world's player count
+     */
+    private void countPlayer(Player player, World world, int delta) {
+        if (world == null || player.hasMetadata("NPC")) return;
+        WorldGroup group = worldGroups.get(world.getUID());
+        if (group == null) return;
+        group.setPlayerCount(group.getPlayerCount() + delta);
+        updateWorldActivity(group);
+    }
+
+    private int countPlayers(World world) {
+        int count = 0;
+        for (Player player : world.getPlayers()) {
+            if (!player.hasMetadata("NPC")) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Stop management and queue every bot for a batched despawn
+     */
+    public void shutdown(String reason, CommandSender sender) {
+        stopManagement();
+        List<PracticeBotEntity> bots = new ArrayList<>();
         for (PracticeArea area : areas.values()) {
-            area.despawnAllBots();
+            area.retire();
+            bots.addAll(area.activeBots.drain());
         }
+        plugin.getBotManager().getDespawnQueue().submit(bots, reason, sender);
+        clearAreas();
+    }
+
+    public void shutdown() {
+        shutdown("shutdown", null);
+    }
+
+    /**
+     * Synchronous shutdown for onDisable, where nothing can be spread over later ticks
+     */
+    public void shutdownNow() {
+        stopManagement();
+        for (PracticeArea area : areas.values()) {
+            area.retire();
+        }
+        int count = plugin.getBotManager().despawnAllNow();
+        for (PracticeArea area : areas.values()) {
+            area.activeBots.clear();
+        }
+        clearAreas();
+        plugin.getLogger().info("Removed " + count + " bot(s).");
+    }
+
+    private void clearAreas() {
         areas.clear();
+        areaIndex = AreaIndex.empty();
+        worldGroups = new HashMap<>();
+        areasByPlayer.clear();
     }
 
     public void reload() {
-        shutdown();
-        loadAreas();
+        reload(null);
+    }
+
+    /**
+     * Reload areas from config.yml by applying the difference to what is running.
+     * Unchanged areas keep their bots, areas whose count or profiles changed are
+     * adjusted in place, and only deleted or moved areas despawn theirs. Kit, profile
+     * and backend changes reach existing areas as their bots respawn.
+     */
+    public void reload(CommandSender sender) {
+        Map<String, AreaDescriptor> next = parseDescriptors();
+        int kept = 0, changed = 0, moved = 0, added = 0, removed = 0;
+
+        for (AreaDescriptor old : new ArrayList<>(descriptors.values())) {
+            String key = old.getName().toLowerCase();
+            if (next.containsKey(key)) continue;
+            descriptors.remove(key);
+            PracticeArea area = areas.get(key);
+            if (area != null) deactivate(area);
+            removed++;
+        }
+
+        for (AreaDescriptor descriptor : next.values()) {
+            String key = descriptor.getName().toLowerCase();
+            AreaDescriptor old = descriptors.put(key, descriptor);
+            PracticeArea area = areas.get(key);
+
+            if (old == null) {
+                added++;
+            } else if (area != null && !old.hasSameBounds(descriptor)) {
+                deactivate(area);
+                area = null;
+                moved++;
+            } else if (area == null || (old.getBotCount() == descriptor.getBotCount()
+                    && old.isEnabled() == descriptor.isEnabled() && old.getProfiles().equals(descriptor.getProfiles())
+                    && old.getBackend() == descriptor.getBackend())) {
+                kept++;
+                continue;
+            }
+
+            if (area == null) {
+                World world = plugin.getServer().getWorld(descriptor.getWorldName());
+                if (world != null) activate(descriptor, world);
+                continue;
+            }
+
+            area.setProfiles(descriptor.getProfiles());
+            area.setBackend(descriptor.getBackend());
+            if (area.isEnabled() != descriptor.isEnabled()) {
+                area.setEnabled(descriptor.isEnabled(), sender);
+            }
+            // Growth is picked up by the next management pass, shrinking trims right away
+            area.setBotCount(descriptor.getBotCount());
+            changed++;
+        }
+
+        rebuildIndex();
+        refreshMembership();
         startManagement();
+
+        plugin.getLogger().info("Reloaded practice areas: " + kept + " unchanged, " + changed + " adjusted, "
+                + moved + " moved, " + added + " added, " + removed + " removed.");
+        if (sender != null) {
+            plugin.getMessageUtils().sendMessage(sender, "area.reloaded", Map.of(
+                    "kept", String.valueOf(kept),
+                    "changed", String.valueOf(changed),
+                    "moved", String.valueOf(moved),
+                    "added", String.valueOf(added),
+                    "removed", String.valueOf(removed)
+            ));
+        }
     }
 
+    /**
+     * Parse every area in config.yml into a descriptor and activate the ones whose
+     * world is already loaded. The rest are activated when their world loads.
+     */
     public void loadAreas() {
         areas.clear();
+        descriptors.clear();
+        descriptors.putAll(parseDescriptors());
+
+        for (AreaDescriptor descriptor : descriptors.values()) {
+            World world = plugin.getServer().getWorld(descriptor.getWorldName());
+            if (world != null) {
+                activate(descriptor, world);
+            }
+        }
+        rebuildIndex();
+        refreshMembership();
+
+        int waiting = descriptors.size() - areas.size();
+        plugin.getLogger().info("Loaded " + descriptors.size() + " practice area(s)"
+                + (waiting > 0 ? ", " + waiting + " waiting for their world to load." : "."));
+    }
+
+    /**
+     * Parse the areas section of config.yml, skipping invalid areas with a warning.
+     * Areas still in the legacy Location format are rewritten in the new one.
+     */
+    private Map<String, AreaDescriptor> parseDescriptors() {
+        Map<String, AreaDescriptor> parsed = new LinkedHashMap<>();
         ConfigurationSection areasSection = plugin.getConfigManager().getMainConfig().getConfigurationSection("areas");
         if (areasSection == null) {
             plugin.getLogger().info("No areas section found in config.yml");
-            return;
+            return parsed;
         }
 
+        boolean migrate = false;
         for (String name : areasSection.getKeys(false)) {
+            ConfigurationSection section = areasSection.getConfigurationSection(name);
+            if (section == null) {
+                plugin.getLogger().warning("Configuration error for area '" + name + "': not a section. Skipping.");
+                continue;
+            }
             try {
-                String path = "areas." + name;
-
-                // Get the world name as a string
-                Object worldObj = plugin.getConfigManager().getMainConfig().get(path + ".world");
-                String worldName = null;
-
-                if (worldObj instanceof String) {
-                    worldName = (String) worldObj;
-                } else if (worldObj != null) {
-                    worldName = worldObj.toString();
-                }
-
-                plugin.getLogger().info("Loading area '" + name + "' - World value: " + worldName);
-
-                if (worldName == null || worldName.isEmpty()) {
-                    plugin.getLogger().warning("Configuration error: 'world' is missing or invalid for area '" + name + "'. Skipping.");
-                    continue;
-                }
-
-                World world = plugin.getServer().getWorld(worldName);
-                if (world == null) {
-                    plugin.getLogger().warning("World '" + worldName + "' for area '" + name + "' not found or not loaded. Skipping.");
-                    continue;
-                }
-
-                // Load locations using getLocation which handles the serialized format
-                Location min = plugin.getConfigManager().getMainConfig().getLocation(path + ".min");
-                Location max = plugin.getConfigManager().getMainConfig().getLocation(path + ".max");
-
-                if (min == null || max == null) {
-                    plugin.getLogger().warning("Configuration error: 'min' or 'max' location is missing for area '" + name + "'. Skipping.");
-                    continue;
-                }
+                AreaDescriptor descriptor = AreaDescriptor.parse(name, section);
+                parsed.put(name.toLowerCase(), descriptor);
+                migrate |= descriptor.isLegacyFormat();
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Configuration error for area '" + name + "': " + e.getMessage() + ". Skipping.");
+            }
+        }
 
-                // Ensure locations have the correct world (in case it wasn't set properly)
-                if (min.getWorld() == null) {
-                    min.setWorld(world);
-                }
-                if (max.getWorld() == null) {
-                    max.setWorld(world);
-                }
+        if (migrate) {
+            for (AreaDescriptor descriptor : parsed.values()) {
+                descriptor.save(areasSection.createSection(descriptor.getName()));
+            }
+            plugin.getConfigManager().saveAll();
+            plugin.getLogger().info("Converted area corners in config.yml to the world-independent format.");
+        }
+        return parsed;
+    }
 
-                int botCount = plugin.getConfigManager().getMainConfig().getInt(path + ".bot-count", 0);
-                boolean enabled = plugin.getConfigManager().getMainConfig().getBoolean(path + ".enabled", false);
+    private void activate(AreaDescriptor descriptor, World world) {
+        PracticeArea area = new PracticeArea(descriptor.getName(), descriptor.getMin(world), descriptor.getMax(world),
+                descriptor.getBotCount(), descriptor.isEnabled());
+        area.setProfiles(descriptor.getProfiles());
+        area.setBackend(descriptor.getBackend());
+        areas.put(descriptor.getName().toLowerCase(), area);
+        area.buildVoxels();
+    }
 
-                PracticeArea area = new PracticeArea(name, min, max, botCount, enabled);
-                areas.put(name.toLowerCase(), area);
-                plugin.getLogger().info("Successfully loaded area: " + name + " (World: " + worldName + ", Bots: " + botCount + ", Enabled: " + enabled + ")");
+    /**
+     * Take a live area out of service: despawn its bots and drop it from the index and membership.
+     * Callers rebuild the index afterwards.
+     */
+    private void deactivate(PracticeArea area) {
+        area.retire();
+        area.despawnAllBots();
+        areas.remove(area.getName().toLowerCase());
+        List<Player> members = new ArrayList<>(area.players);
+        area.players.clear();
+        for (Player player : members) {
+            Set<PracticeArea> playerAreas = areasByPlayer.get(player.getUniqueId());
+            if (playerAreas != null) playerAreas.remove(area);
+            for (MembershipListener listener : membershipListeners) {
+                listener.onLeave(player, area);
+            }
+        }
+    }
 
-            } catch (Exception e) {
-                plugin.getLogger().severe("Error loading area '" + name + "': " + e.getMessage());
-                e.printStackTrace();
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        World world = event.getWorld();
+        int activated = 0;
+        for (AreaDescriptor descriptor : descriptors.values()) {
+            if (descriptor.getWorldName().equals(world.getName()) && !areas.containsKey(descriptor.getName().toLowerCase())) {
+                activate(descriptor, world);
+                activated++;
             }
         }
-        plugin.getLogger().info("Loaded " + areas.size() + " practice area(s).");
+        if (activated > 0) {
+            rebuildIndex();
+            refreshMembership();
+            plugin.getLogger().info("Activated " + activated + " practice area(s) in world '" + world.getName() + "'.");
+        }
     }
 
-    public void saveArea(PracticeArea area) {
-        String path = "areas." + area.getName();
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        World world = event.getWorld();
+        List<PracticeArea> unloaded = new ArrayList<>();
+        for (PracticeArea area : areas.values()) {
+            if (world.equals(area.getWorld())) unloaded.add(area);
+        }
+        if (unloaded.isEmpty()) return;
 
-        // Save world as a STRING, not as part of the location
-        plugin.getConfigManager().getMainConfig().set(path + ".world", area.getWorld().getName());
+        for (PracticeArea area : unloaded) {
+            descriptors.put(area.getName().toLowerCase(), AreaDescriptor.of(area));
+            deactivate(area);
+        }
+        rebuildIndex();
+        plugin.getLogger().info("Deactivated " + unloaded.size() + " practice area(s) in unloaded world '" + world.getName() + "'.");
+    }
 
-        // Save locations
-        plugin.getConfigManager().getMainConfig().set(path + ".min", area.getMin());
-        plugin.getConfigManager().getMainConfig().set(path + ".max", area.getMax());
-        plugin.getConfigManager().getMainConfig().set(path + ".bot-count", area.getBotCount());
-        plugin.getConfigManager().getMainConfig().set(path + ".enabled", area.isEnabled());
+    public void saveArea(PracticeArea area) {
+        AreaDescriptor descriptor = AreaDescriptor.of(area);
+        descriptors.put(area.getName().toLowerCase(), descriptor);
+        descriptor.save(plugin.getConfigManager().getMainConfig().createSection("areas." + area.getName()));
 
         plugin.getConfigManager().saveAll();
 
@@ -151,16 +416,19 @@ public class AreaManager {
 
     public void deleteArea(String name) {
         PracticeArea area = getArea(name);
+        AreaDescriptor descriptor = descriptors.remove(name.toLowerCase());
         if (area != null) {
-            area.despawnAllBots();
-            areas.remove(name.toLowerCase());
-            plugin.getConfigManager().getMainConfig().set("areas." + name, null);
+            deactivate(area);
+            rebuildIndex();
+        }
+        if (area != null || descriptor != null) {
+            plugin.getConfigManager().getMainConfig().set("areas." + (descriptor != null ? descriptor.getName() : name), null);
             plugin.getConfigManager().saveAll();
         }
     }
 
     public boolean createArea(String name, Location pos1, Location pos2, int botCount) {
-        if (areas.containsKey(name.toLowerCase())) return false;
+        if (areas.containsKey(name.toLowerCase()) || descriptors.containsKey(name.toLowerCase())) return false;
 
         Location min = new Location(pos1.getWorld(),
                 Math.min(pos1.getX(), pos2.getX()),
@@ -174,6 +442,9 @@ public class AreaManager {
 
         PracticeArea area = new PracticeArea(name, min, max, botCount, true);
         areas.put(name.toLowerCase(), area);
+        area.buildVoxels();
+        rebuildIndex();
+        refreshMembership();
         saveArea(area);
         return true;
     }
@@ -186,6 +457,63 @@ public class AreaManager {
         return areas.values();
     }
 
+    /**
+     * The area containing a location, or null. Uses the chunk index, so the cost
+     * doesn't grow with the number of areas.
+     */
+    public PracticeArea areaAt(Location location) {
+        if (location.getWorld() == null) return null;
+        for (PracticeArea area : areaIndex.candidates(location.getWorld().getUID(), location.getBlockX(), location.getBlockZ())) {
+            if (area.contains(location)) return area;
+        }
+        return null;
+    }
+
+    /**
+     * All areas containing a location, for setups with overlapping areas
+     */
+    public List<PracticeArea> areasAt(Location location) {
+        if (location.getWorld() == null) return Collections.emptyList();
+        List<PracticeArea> result = new ArrayList<>(1);
+        for (PracticeArea area : areaIndex.candidates(location.getWorld().getUID(), location.getBlockX(), location.getBlockZ())) {
+            if (area.contains(location)) result.add(area);
+        }
+        return result;
+    }
+
+    /**
+     * Rebuild the chunk index and the world groups after areas were added or removed.
+     * Bounds are padded by one block so block changes on the edge of an area's voxel
+     * map are still found. Worlds that already had a group keep its suspended state.
+     */
+    private void rebuildIndex() {
+        AreaIndex.Builder<PracticeArea> builder = AreaIndex.builder();
+        Map<UUID, WorldGroup> groups = new HashMap<>();
+        for (PracticeArea area : areas.values()) {
+            if (area.getWorld() == null) continue;
+            UUID worldId = area.getWorld().getUID();
+            builder.add(area, worldId,
+                    area.getMin().getBlockX() - 1, area.getMin().getBlockZ() - 1,
+                    area.getMax().getBlockX() + 1, area.getMax().getBlockZ() + 1);
+
+            WorldGroup group = groups.get(worldId);
+            if (group == null) {
+                group = worldGroups.get(worldId);
+                if (group == null) group = new WorldGroup(area.getWorld());
+                group.areas().clear();
+                group.setPlayerCount(countPlayers(area.getWorld()));
+                groups.put(worldId, group);
+            }
+            group.areas().add(area);
+            area.group = group;
+        }
+        areaIndex = builder.build();
+        worldGroups = groups;
+        for (WorldGroup group : groups.values()) {
+            updateWorldActivity(group);
+        }
+    }
+
     public Set<String> getAreaNames() {
         Set<String> names = new HashSet<>();
         for (PracticeArea area : areas.values()) {
@@ -208,14 +536,189 @@ public class AreaManager {
         }
     }
 
+    /**
+     * Subscribe to players entering and leaving practice areas
+     */
+    public void addMembershipListener(MembershipListener listener) {
+        membershipListeners.add(listener);
+    }
+
+    /**
+     * The real players currently inside an area
+     */
+    public Set<Player> getPlayersIn(PracticeArea area) {
+        return area.getPlayers();
+    }
+
+    /**
+     * The areas a real player is currently inside
+     */
+    public Set<PracticeArea> getAreasOf(Player player) {
+        Set<PracticeArea> playerAreas = areasByPlayer.get(player.getUniqueId());
+        return playerAreas == null ? Collections.emptySet() : Collections.unmodifiableSet(playerAreas);
+    }
+
+    /**
+     * Recompute membership for every online player, e.g. after areas were added or removed
+     */
+    private void refreshMembership() {
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            updateMembership(player, player.getLocation());
+        }
+    }
+
+    private void updateMembership(Player player, Location location) {
+        if (player.hasMetadata("NPC")) return;
+
+        long start = plugin.getTickProfiler().start();
+        Set<PracticeArea> playerAreas = areasByPlayer.get(player.getUniqueId());
+        if (playerAreas != null) {
+            Iterator<PracticeArea> iterator = playerAreas.iterator();
+            while (iterator.hasNext()) {
+                PracticeArea area = iterator.next();
+                if (location == null || !area.contains(location)) {
+                    iterator.remove();
+                    area.players.remove(player);
+                    for (MembershipListener listener : membershipListeners) {
+                        listener.onLeave(player, area);
+                    }
+                }
+            }
+        }
+
+        if (location != null && location.getWorld() != null) {
+            for (PracticeArea area : areaIndex.candidates(location.getWorld().getUID(), location.getBlockX(), location.getBlockZ())) {
+                if ((playerAreas != null && playerAreas.contains(area)) || !area.contains(location)) continue;
+                if (playerAreas == null) {
+                    playerAreas = new HashSet<>();
+                    areasByPlayer.put(player.getUniqueId(), playerAreas);
+                }
+                playerAreas.add(area);
+                area.players.add(player);
+                for (MembershipListener listener : membershipListeners) {
+                    listener.onEnter(player, area);
+                }
+            }
+        }
+        plugin.getTickProfiler().record(TickProfiler.GLOBAL, TickProfiler.Phase.EVENTS, start);
+    }
+
+    private void removeFromAllAreas(Player player) {
+        Set<PracticeArea> playerAreas = areasByPlayer.remove(player.getUniqueId());
+        if (playerAreas == null) return;
+        for (PracticeArea area : playerAreas) {
+            area.players.remove(player);
+            for (MembershipListener listener : membershipListeners) {
+                listener.onLeave(player, area);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY()
+                && from.getBlockZ() == to.getBlockZ() && from.getWorld() == to.getWorld()) {
+            return;
+        }
+        updateMembership(event.getPlayer(), to);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        updateMembership(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        countPlayer(event.getPlayer(), event.getFrom(), -1);
+        countPlayer(event.getPlayer(), event.getPlayer().getWorld(), 1);
+        updateMembership(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        updateMembership(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        countPlayer(event.getPlayer(), event.getPlayer().getWorld(), 1);
+        updateMembership(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        countPlayer(event.getPlayer(), event.getPlayer().getWorld(), -1);
+        removeFromAllAreas(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        Block block = event.getBlockPlaced();
+        updateVoxel(block, block.getType().isSolid());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        updateVoxel(event.getBlock(), false);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            updateVoxel(block, false);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            updateVoxel(block, false);
+        }
+    }
+
+    private void updateVoxel(Block block, boolean solid) {
+        for (PracticeArea area : areaIndex.candidates(block.getWorld().getUID(), block.getX(), block.getZ())) {
+            if (area.getVoxels() != null) {
+                area.getVoxels().set(block.getX(), block.getY(), block.getZ(), solid);
+            }
+        }
+    }
+
+    /**
+     * Callback for real players entering or leaving a practice area
+     */
+    public interface MembershipListener {
+        void onEnter(Player player, PracticeArea area);
+
+        void onLeave(Player player, PracticeArea area);
+    }
+
     public class PracticeArea {
         private final String name;
         private final Location min;
         private final Location max;
         private int botCount;
         private boolean enabled;
-        private final List<PracticeBotEntity> activeBots = Collections.synchronizedList(new ArrayList<>());
+        private List<String> profiles = List.of();
+        private BotBackend.Type backend = BotBackend.Type.CITIZENS;
+        private final SnapshotList<PracticeBotEntity> activeBots = new SnapshotList<>();
+        private final Set<Player> players = new HashSet<>();
+        private final Set<Player> playersView = Collections.unmodifiableSet(players);
         private boolean isSpawning = false;
+        private BukkitTask spawnTask;
+        private boolean retired = false;
+        private VoxelMap voxels;
+        private NavigationGrid navigationGrid;
+        private VoxelMap navigationSource;
+        private boolean navigationBuilding = false;
+        private int navigationSeenVersion = -1;
+        private int navigationChangedTick;
+        private int navigationDirtyTick;
+        private final FlowFieldCache flowFields = new FlowFieldCache();
+        private WorldGroup group;
 
         public PracticeArea(String name, Location min, Location max, int botCount, boolean enabled) {
             this.name = name;
@@ -228,30 +731,130 @@ public class AreaManager {
         void manageBots() {
             if (isSpawning) return;
 
-            // Clean up dead/invalid bots
-            activeBots.removeIf(bot -> bot.getNpc() == null || !bot.getNpc().isSpawned());
+            buildNavigation();
+            flowFields.evict(plugin.getServer().getCurrentTick(), 100);
 
-            int needed = botCount - activeBots.size();
+            // Tear down bots whose body is gone without a death, e.g. a mob unloaded with its chunk
+            for (PracticeBotEntity bot : activeBots.removeMatching(bot -> !bot.getBackend().isSpawned())) {
+                bot.discard();
+            }
+
+            int needed = getEffectiveBotCount() - activeBots.size();
 
             if (needed > 0) {
                 spawnBots(needed);
+            } else if (needed < 0) {
+                trimBots(getEffectiveBotCount());
             }
         }
 
+        /**
+         * Pair up idle bots for bot-vs-bot fights. Bots are sorted by x so each one only
+         * looks at neighbours within detection range; an idle bot is matched with the
+         * nearest other idle bot (and vice versa), or failing that with the nearest bot
+         * that still has a free attacker slot.
+         */
+        void runMatchmaking() {
+            List<PracticeBotEntity> bots = new ArrayList<>();
+            List<LivingEntity> entities = new ArrayList<>();
+            for (PracticeBotEntity bot : activeBots) {
+                LivingEntity entity = bot.getBackend().getEntity();
+                if (bot.getAi() != null && entity != null && bot.getBackend().isSpawned()) {
+                    bots.add(bot);
+                    entities.add(entity);
+                }
+            }
+            int count = bots.size();
+            if (count < 2) return;
+
+            double range = plugin.getConfigManager().getDouble("bot-behavior.detection-range", 32.0);
+            double rangeSquared = range * range;
+            double[] xs = new double[count];
+            double[] ys = new double[count];
+            double[] zs = new double[count];
+            boolean[] idle = new boolean[count];
+            Location scratch = new Location(null, 0, 0, 0);
+            Integer[] order = new Integer[count];
+            int idleCount = 0;
+            for (int i = 0; i < count; i++) {
+                entities.get(i).getLocation(scratch);
+                xs[i] = scratch.getX();
+                ys[i] = scratch.getY();
+                zs[i] = scratch.getZ();
+                idle[i] = bots.get(i).getAi().getTarget() == null;
+                if (idle[i]) idleCount++;
+                order[i] = i;
+            }
+            if (idleCount == 0) return;
+            Arrays.sort(order, Comparator.comparingDouble(i -> xs[i]));
+
+            BotManager botManager = plugin.getBotManager();
+            for (int position = 0; position < count; position++) {
+                int self = order[position];
+                if (!idle[self]) continue;
+
+                int bestIdle = -1;
+                int bestBusy = -1;
+                double bestIdleDistance = rangeSquared;
+                double bestBusyDistance = rangeSquared;
+                for (int step = -1; step <= 1; step += 2) {
+                    for (int scan = position + step; scan >= 0 && scan < count; scan += step) {
+                        int other = order[scan];
+                        double dx = xs[other] - xs[self];
+                        if (dx * dx >= rangeSquared) break;
+                        double dy = ys[other] - ys[self];
+                        double dz = zs[other] - zs[self];
+                        double distance = dx * dx + dy * dy + dz * dz;
+                        if (distance >= rangeSquared || !botManager.isTargetSlotAvailable(entities.get(other))) continue;
+                        if (idle[other] && distance < bestIdleDistance) {
+                            bestIdle = other;
+                            bestIdleDistance = distance;
+                        } else if (!idle[other] && distance < bestBusyDistance) {
+                            bestBusy = other;
+                            bestBusyDistance = distance;
+                        }
+                    }
+                }
+
+                int partner = bestIdle >= 0 ? bestIdle : bestBusy;
+                if (partner < 0) continue;
+
+                bots.get(self).getAi().forceTarget(entities.get(partner));
+                idle[self] = false;
+                if (idle[partner] && botManager.isTargetSlotAvailable(entities.get(self))) {
+                    bots.get(partner).getAi().forceTarget(entities.get(self));
+                    idle[partner] = false;
+                }
+            }
+        }
+
+        /**
+         * The number of bots this area should keep, after the load governor's scaling
+         */
+        public int getEffectiveBotCount() {
+            return plugin.getLoadGovernor().scaleBotCount(botCount);
+        }
+
+        private void trimBots(int target) {
+            List<PracticeBotEntity> removed = activeBots.trimTo(target);
+            plugin.getBotManager().getDespawnQueue().submit(removed, "trim " + name, null);
+        }
+
         public void spawnBots(int amount) {
-            if (amount <= 0) return;
+            if (amount <= 0 || retired) return;
 
             isSpawning = true;
             long spawnDelay = plugin.getConfigManager().getInt("performance.spawn-delay-ticks", 2);
 
             plugin.getLogger().info("Spawning " + amount + " bots in area '" + name + "'...");
 
-            new BukkitRunnable() {
+            spawnTask = new BukkitRunnable() {
                 private int count = 0;
                 @Override
                 public void run() {
-                    if (count >= amount || !enabled) {
+                    if (count >= amount || !enabled || retired) {
                         isSpawning = false;
+                        spawnTask = null;
                         this.cancel();
                         if (count > 0) {
                             plugin.getLogger().info("Finished spawning " + count + " bots in area '" + name + "'");
@@ -263,12 +866,16 @@ public class AreaManager {
                     if (kitNames.isEmpty()) {
                         plugin.getLogger().warning("Cannot spawn bot in area '" + name + "': No kits available.");
                         isSpawning = false;
+                        spawnTask = null;
                         this.cancel();
                         return;
                     }
-                    String randomKit = kitNames.get(new Random().nextInt(kitNames.size()));
+                    ProfileManager.Profile profile = nextProfile();
+                    String kitName = profile.getKit() != null && plugin.getKitManager().hasKit(profile.getKit())
+                            ? profile.getKit()
+                            : kitNames.get(new Random().nextInt(kitNames.size()));
 
-                    PracticeBotEntity bot = new PracticeBotEntity(plugin, randomKit, this_PracticeArea());
+                    PracticeBotEntity bot = new PracticeBotEntity(plugin, kitName, profile, this_PracticeArea());
                     if (bot.spawn()) {
                         activeBots.add(bot);
                         plugin.getBotManager().addBot(bot);
@@ -280,22 +887,166 @@ public class AreaManager {
             }.runTaskTimer(plugin, 0L, spawnDelay);
         }
 
-        public void despawnAllBots() {
-            synchronized (activeBots) {
-                Iterator<PracticeBotEntity> iterator = activeBots.iterator();
-                while (iterator.hasNext()) {
-                    PracticeBotEntity bot = iterator.next();
-                    plugin.getBotManager().removeBot(bot);
-                    bot.despawn();
-                    iterator.remove();
-                }
+        /**
+         * Take this area out of service for good: stop a spawn batch in progress so no
+         * more bots are created for it. Its bots are despawned separately.
+         */
+        void retire() {
+            retired = true;
+            isSpawning = false;
+            if (spawnTask != null) {
+                spawnTask.cancel();
+                spawnTask = null;
             }
         }
 
+        public void despawnAllBots() {
+            despawnAllBots(null);
+        }
+
+        /**
+         * Queue all of this area's bots for a batched despawn
+         */
+        public void despawnAllBots(CommandSender sender) {
+            List<PracticeBotEntity> removed = activeBots.drain();
+            plugin.getBotManager().getDespawnQueue().submit(removed, "area " + name, sender);
+        }
+
+        /**
+         * Pick the profile for the next spawn. Listing a profile several times weights it.
+         */
+        private ProfileManager.Profile nextProfile() {
+            ProfileManager profiles = plugin.getProfileManager();
+            if (this.profiles.isEmpty()) return profiles.getDefaultProfile();
+            ProfileManager.Profile profile = profiles.getProfile(this.profiles.get(new Random().nextInt(this.profiles.size())));
+            return profile != null ? profile : profiles.getDefaultProfile();
+        }
+
         private AreaManager.PracticeArea this_PracticeArea() {
             return this;
         }
 
+        /**
+         * Build the collision cache from chunk snapshots. Chunks are loaded with Paper's
+         * async chunk loading and snapshotted on the main thread as they arrive; once all
+         * are in, the scan runs asynchronously and is published on the main thread.
+         * Block changes in the meantime are queued by the map and applied on publish.
+         */
+        void buildVoxels() {
+            World world = getWorld();
+            if (world == null) return;
+
+            VoxelMap map = VoxelMap.around(world, min, max);
+            List<ChunkSnapshot> snapshots = new ArrayList<>();
+            List<CompletableFuture<?>> loads = new ArrayList<>();
+            for (int cx = map.getMinX() >> 4; cx <= map.getMaxX() >> 4; cx++) {
+                for (int cz = map.getMinZ() >> 4; cz <= map.getMaxZ() >> 4; cz++) {
+                    // Paper completes these on the main thread
+                    loads.add(world.getChunkAtAsync(cx, cz)
+                            .thenAccept(chunk -> snapshots.add(chunk.getChunkSnapshot(false, false, false))));
+                }
+            }
+            this.voxels = map;
+
+            CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    plugin.getLogger().warning("Could not load the chunks of area '" + name + "': " + error.getMessage());
+                    return;
+                }
+                plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+                    BitSet bits = map.scan(snapshots);
+                    plugin.getServer().getScheduler().runTask(plugin, () -> {
+                        map.publish(bits);
+                        buildNavigation();
+                    });
+                });
+            });
+        }
+
+        /**
+         * Rebuild the navigation grid off the main thread if the voxel map has changed
+         * since the current grid was built. Block changes are batched: the rebuild waits
+         * until the area has had no changes for the rebuild delay, but no longer than
+         * four times that while building goes on.
+         */
+        void buildNavigation() {
+            VoxelMap geometry = voxels;
+            if (geometry == null || !geometry.isReady() || navigationBuilding) return;
+            NavigationGrid previous = navigationGrid;
+            int version = geometry.getVersion();
+            boolean sameSource = previous != null && navigationSource == geometry;
+            if (sameSource && previous.getSourceVersion() == version) return;
+
+            if (sameSource) {
+                int currentTick = plugin.getServer().getCurrentTick();
+                int delay = plugin.getConfigManager().getInt("movement.navigation-rebuild-delay", 100);
+                if (previous.getSourceVersion() == navigationSeenVersion) {
+                    // First change since the last build
+                    navigationDirtyTick = currentTick;
+                }
+                if (version != navigationSeenVersion) {
+                    navigationSeenVersion = version;
+                    navigationChangedTick = currentTick;
+                }
+                if (currentTick - navigationChangedTick < delay && currentTick - navigationDirtyTick < delay * 4) return;
+            }
+
+            navigationBuilding = true;
+            navigationSeenVersion = version;
+            BitSet bits = geometry.copyBits();
+            int waypoints = plugin.getConfigManager().getInt("movement.wander-waypoints", 12);
+            Random random = new Random(name.hashCode() * 31L + version);
+
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+                NavigationGrid grid = NavigationGrid.build(geometry, bits, version,
+                        min.getBlockX(), min.getBlockY(), min.getBlockZ(),
+                        max.getBlockX(), max.getBlockY() + 1, max.getBlockZ(),
+                        waypoints, previous, random);
+                plugin.getServer().getScheduler().runTask(plugin, () -> {
+                    navigationBuilding = false;
+                    if (voxels == geometry) {
+                        navigationGrid = grid;
+                        navigationSource = geometry;
+                    }
+                });
+            });
+        }
+
+        public NavigationGrid getNavigationGrid() { return navigationGrid; }
+
+        /**
+         * The shared flow field towards a target, or null if the area has no grid yet
+         * or the target isn't standing on it
+         */
+        public FlowField getFlowField(LivingEntity target) {
+            NavigationGrid grid = navigationGrid;
+            if (grid == null) return null;
+            return flowFields.get(grid, target, plugin.getServer().getCurrentTick());
+        }
+
+        /**
+         * A random standable position from the navigation grid, or null if it isn't built yet
+         */
+        public Location getRandomWalkableLocation() {
+            NavigationGrid grid = navigationGrid;
+            if (grid == null || grid.getNodeCount() == 0) return null;
+            int node = new Random().nextInt(grid.getNodeCount());
+            return new Location(getWorld(), grid.getNodeX(node) + 0.5, grid.getNodeY(node), grid.getNodeZ(node) + 0.5);
+        }
+
+        /**
+         * Whether the block at the given position blocks movement. Uses the voxel cache
+         * when it covers the position, otherwise falls back to the world.
+         */
+        public boolean isSolid(int x, int y, int z) {
+            if (voxels != null && voxels.isReady() && voxels.contains(x, y, z)) {
+                return voxels.isSolid(x, y, z);
+            }
+            return getWorld().getBlockAt(x, y, z).getType().isSolid();
+        }
+
+        public VoxelMap getVoxels() { return voxels; }
+
         public Location getRandomLocation() {
             double x = min.getX() + (max.getX() - min.getX()) * new Random().nextDouble();
             double y = min.getY() + (max.getY() - min.getY()) * new Random().nextDouble();
@@ -318,26 +1069,47 @@ public class AreaManager {
         public Location getMax() { return max; }
         public int getBotCount() { return botCount; }
         public boolean isEnabled() { return enabled; }
-        public List<PracticeBotEntity> getActiveBots() { return activeBots; }
+        public List<PracticeBotEntity> getActiveBots() { return activeBots.snapshot(); }
+        public Set<Player> getPlayers() { return playersView; }
+        public List<String> getProfiles() { return profiles; }
+        public BotBackend.Type getBackend() { return backend; }
+
+        /**
+         * Set what new bots are made of; bots already spawned keep their body
+         */
+        public void setBackend(BotBackend.Type backend) {
+            this.backend = backend;
+        }
+
+        /**
+         * Whether this area's world has players, i.e. its bots should be ticked
+         */
+        public boolean isWorldActive() {
+            return group == null || group.isActive();
+        }
+
+        /**
+         * Set the profiles new bots are drawn from; bots already spawned keep theirs
+         */
+        public void setProfiles(List<String> profiles) {
+            this.profiles = List.copyOf(profiles);
+        }
 
         public void setBotCount(int count) {
             this.botCount = Math.max(0, count);
-            if (this.botCount < activeBots.size()) {
-                int toRemove = activeBots.size() - this.botCount;
-                for (int i = 0; i < toRemove; i++) {
-                    if (!activeBots.isEmpty()) {
-                        PracticeBotEntity bot = activeBots.remove(0);
-                        plugin.getBotManager().removeBot(bot);
-                        bot.despawn();
-                    }
-                }
+            if (getEffectiveBotCount() < activeBots.size()) {
+                trimBots(getEffectiveBotCount());
             }
         }
 
         public void setEnabled(boolean enabled) {
+            setEnabled(enabled, null);
+        }
+
+        public void setEnabled(boolean enabled, CommandSender sender) {
             this.enabled = enabled;
             if (!enabled) {
-                despawnAllBots();
+                despawnAllBots(sender);
             }
         }
     }
@@ -1,7 +1,14 @@
 package com.pallux.practicebot.managers;
 
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
 import com.pallux.practicebot.PracticeBot;
+import com.pallux.practicebot.bot.BotBackend;
+import com.pallux.practicebot.bot.BotStateStore;
 import com.pallux.practicebot.bot.PracticeBotEntity;
+import com.pallux.practicebot.recorder.FlightRecord;
+import com.pallux.practicebot.utils.SnapshotList;
+import com.pallux.practicebot.utils.TickProfiler;
+import org.bukkit.GameMode;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -9,49 +16,61 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntityTransformEvent;
+import org.bukkit.event.player.PlayerGameModeChangeEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
-public class BotManager implements Listener {
+public class BotManager implements Listener, AreaManager.MembershipListener {
 
     private final PracticeBot plugin;
-    private final Set<PracticeBotEntity> allBots = Collections.synchronizedSet(new HashSet<>());
+    private final SnapshotList<PracticeBotEntity> allBots = new SnapshotList<>();
     private final Map<UUID, Set<UUID>> targeterMap = new ConcurrentHashMap<>();
+    private final Map<UUID, PracticeBotEntity> botsById = new ConcurrentHashMap<>();
+    private final DespawnQueue despawnQueue;
+    private final BotStateStore stateStore;
 
     public BotManager(PracticeBot plugin) {
         this.plugin = plugin;
+        this.despawnQueue = new DespawnQueue(plugin);
+        this.stateStore = new BotStateStore(plugin);
         plugin.getServer().getPluginManager().registerEvents(this, plugin);
     }
 
     public void addBot(PracticeBotEntity bot) {
         if (bot != null) {
-            allBots.add(bot);
+            allBots.addIfAbsent(bot);
+            if (bot.getBackend().getUniqueId() != null) {
+                botsById.put(bot.getBackend().getUniqueId(), bot);
+            }
         }
     }
 
     public void removeBot(PracticeBotEntity bot) {
-        if (bot == null || bot.getNpc() == null) return;
+        if (bot == null || bot.getBackend().getUniqueId() == null) return;
         allBots.remove(bot);
-        releaseTarget(bot.getNpc().getUniqueId());
+        botsById.remove(bot.getBackend().getUniqueId());
+        releaseTarget(bot.getBackend().getUniqueId());
     }
 
     public PracticeBotEntity getBotFromEntity(LivingEntity entity) {
         if (entity == null || !entity.hasMetadata("NPC")) return null;
-        synchronized (allBots) {
-            for (PracticeBotEntity bot : allBots) {
-                if (bot.getNpc() != null && bot.getNpc().getEntity() != null &&
-                        bot.getNpc().getEntity().getUniqueId().equals(entity.getUniqueId())) {
-                    return bot;
-                }
+        for (PracticeBotEntity bot : allBots) {
+            LivingEntity botEntity = bot.getBackend().getEntity();
+            if (botEntity != null && botEntity.getUniqueId().equals(entity.getUniqueId())) {
+                return bot;
             }
         }
         return null;
     }
 
-    public Set<PracticeBotEntity> getAllBots() {
-        return new HashSet<>(allBots);
+    /**
+     * Immutable snapshot of all bots, cheap to take and safe to iterate while bots come and go
+     */
+    public List<PracticeBotEntity> getAllBots() {
+        return allBots.snapshot();
     }
 
     public int getActiveBotCount() {
@@ -59,49 +78,55 @@ public class BotManager implements Listener {
     }
 
     public Collection<PracticeBotEntity> getActiveBots() {
-        return new ArrayList<>(allBots);
+        return allBots.snapshot();
     }
 
     public Set<String> getBotNames() {
         Set<String> names = new HashSet<>();
-        synchronized (allBots) {
-            for (PracticeBotEntity bot : allBots) {
-                if (bot.getName() != null) {
-                    names.add(bot.getName());
-                }
+        for (PracticeBotEntity bot : allBots) {
+            if (bot.getName() != null) {
+                names.add(bot.getName());
             }
         }
         return names;
     }
 
     public boolean despawnBot(String name) {
-        synchronized (allBots) {
-            for (PracticeBotEntity bot : allBots) {
-                if (bot.getName() != null && bot.getName().equalsIgnoreCase(name)) {
-                    removeBot(bot);
-                    bot.despawn();
-                    return true;
-                }
+        for (PracticeBotEntity bot : allBots) {
+            if (bot.getName() != null && bot.getName().equalsIgnoreCase(name)) {
+                removeBot(bot);
+                bot.despawn();
+                return true;
             }
         }
         return false;
     }
 
     public int despawnAll() {
-        int count = 0;
-        synchronized (allBots) {
-            Iterator<PracticeBotEntity> iterator = allBots.iterator();
-            while (iterator.hasNext()) {
-                PracticeBotEntity bot = iterator.next();
-                bot.despawn();
-                iterator.remove();
-                count++;
-            }
+        List<PracticeBotEntity> bots = allBots.snapshot();
+        despawnQueue.submit(bots, "despawn all", null);
+        return bots.size();
+    }
+
+    /**
+     * Synchronous fast path for onDisable: remove every bot and clear the indexes in bulk,
+     * skipping per-bot slot release and target release.
+     */
+    public int despawnAllNow() {
+        stateStore.stop();
+        int count = despawnQueue.drainNow();
+        for (PracticeBotEntity bot : allBots.drain()) {
+            bot.destroyNow();
+            count++;
         }
         targeterMap.clear();
+        botsById.clear();
         return count;
     }
 
+    public DespawnQueue getDespawnQueue() { return despawnQueue; }
+    public BotStateStore getStateStore() { return stateStore; }
+
     public boolean isTargetSlotAvailable(LivingEntity target) {
         int maxAttackers = (target instanceof Player)
                 ? plugin.getConfigManager().getInt("combat.max-player-attackers", 2)
@@ -111,38 +136,120 @@ public class BotManager implements Listener {
     }
 
     public void claimTarget(UUID attackerId, LivingEntity newTarget) {
-        releaseTarget(attackerId);
+        releaseClaim(attackerId);
 
         if (newTarget != null) {
             targeterMap.computeIfAbsent(newTarget.getUniqueId(), k -> Collections.synchronizedSet(new HashSet<>())).add(attackerId);
         }
     }
 
+    /**
+     * Release the slot an attacker holds on its current target. Idle bots near the
+     * target pick up the free slot on their next decision tick by themselves.
+     */
+    public void releaseClaim(UUID attackerId) {
+        targeterMap.forEach((targetUUID, attackers) -> attackers.remove(attackerId));
+    }
+
+    /**
+     * Forget an entity completely, both as an attacker and as a target.
+     * Bots that were attacking it are asked to retarget.
+     */
     public void releaseTarget(UUID uniqueId) {
-        targeterMap.forEach((targetUUID, attackers) -> attackers.remove(uniqueId));
-        targeterMap.remove(uniqueId);
+        releaseClaim(uniqueId);
+        Set<UUID> attackers = targeterMap.remove(uniqueId);
+        if (attackers != null) {
+            requestRetarget(attackers);
+        }
+    }
+
+    /**
+     * Ask the bots with the given ids to re-evaluate their target
+     */
+    public void requestRetarget(Collection<UUID> attackerIds) {
+        synchronized (attackerIds) {
+            for (UUID attackerId : attackerIds) {
+                PracticeBotEntity bot = botsById.get(attackerId);
+                if (bot != null && bot.getAi() != null) {
+                    bot.getAi().requestRetarget();
+                }
+            }
+        }
+    }
+
+    /**
+     * Ask the bots attacking a target to re-evaluate their target
+     */
+    public void requestRetargetForAttackers(UUID targetId) {
+        Set<UUID> attackers = targeterMap.get(targetId);
+        if (attackers != null) {
+            requestRetarget(attackers);
+        }
+    }
+
+    /**
+     * Ask the bots of an area that could switch to a player (idle, or fighting another bot)
+     * to re-evaluate their target
+     */
+    public void requestRetargetInArea(AreaManager.PracticeArea area) {
+        for (PracticeBotEntity bot : area.getActiveBots()) {
+            if (bot.getAi() == null) continue;
+            LivingEntity target = bot.getAi().getTarget();
+            if (target == null || target.hasMetadata("NPC")) {
+                bot.getAi().requestRetarget();
+            }
+        }
+    }
+
+    private void requestRetargetAround(Player player) {
+        for (AreaManager.PracticeArea area : plugin.getAreaManager().getAreasOf(player)) {
+            requestRetargetInArea(area);
+        }
+    }
+
+    @Override
+    public void onEnter(Player player, AreaManager.PracticeArea area) {
+        requestRetargetInArea(area);
+    }
+
+    @Override
+    public void onLeave(Player player, AreaManager.PracticeArea area) {
+        requestRetargetForAttackers(player.getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onGameModeChange(PlayerGameModeChangeEvent event) {
+        Player player = event.getPlayer();
+        requestRetargetForAttackers(player.getUniqueId());
+        if (event.getNewGameMode() == GameMode.SURVIVAL || event.getNewGameMode() == GameMode.ADVENTURE) {
+            requestRetargetAround(player);
+        }
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void onBotDamaged(EntityDamageByEntityEvent event) {
         if (event.isCancelled() || !(event.getEntity() instanceof LivingEntity)) return;
 
+        long start = plugin.getTickProfiler().start();
         PracticeBotEntity bot = getBotFromEntity((LivingEntity) event.getEntity());
-        if (bot == null) return;
-
-        if (!(event.getDamager() instanceof LivingEntity attacker)) return;
-
-        if (bot.getAi() != null && bot.getAi().getTarget() != null && bot.getAi().getTarget().equals(attacker)) {
+        if (bot == null) {
+            plugin.getTickProfiler().record(TickProfiler.GLOBAL, TickProfiler.Phase.EVENTS, start);
             return;
         }
 
         if (bot.getAi() != null) {
+            bot.getAi().recordEvent(FlightRecord.Action.DAMAGED);
+        }
+        if (event.getDamager() instanceof LivingEntity attacker && bot.getAi() != null
+                && (bot.getAi().getTarget() == null || !bot.getAi().getTarget().equals(attacker))) {
             bot.getAi().forceTarget(attacker);
         }
+        plugin.getTickProfiler().record(bot.getArea().getName(), TickProfiler.Phase.EVENTS, start);
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onEntityDeath(EntityDeathEvent event) {
+        long start = plugin.getTickProfiler().start();
         LivingEntity victim = event.getEntity();
         Player killer = victim.getKiller();
 
@@ -156,15 +263,47 @@ public class BotManager implements Listener {
                 plugin.getMessageUtils().sendMessage(killer, "bots.bot-killed", Map.of("bot", killedBot.getName()));
             }
 
-            killedBot.onDeath();
+            killedBot.onDeath(killer);
+        } else if (despawnQueue.isQueued(victim)) {
+            // Unregistered already, but its body is still waiting in the despawn queue
+            event.getDrops().clear();
+            event.setDroppedExp(0);
         }
 
         // Clean up targeting map for the deceased entity
         releaseTarget(victim.getUniqueId());
+        plugin.getTickProfiler().record(killedBot != null ? killedBot.getArea().getName() : TickProfiler.GLOBAL, TickProfiler.Phase.EVENTS, start);
+    }
+
+    /**
+     * Mob bodies are not persistent, so the server throws them away when their chunk
+     * unloads. Tear such a bot down right away instead of leaving it registered.
+     * Bodies removed by despawning or death are unregistered before this fires.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityRemove(EntityRemoveFromWorldEvent event) {
+        if (!(event.getEntity() instanceof LivingEntity entity)) return;
+        PracticeBotEntity bot = getBotFromEntity(entity);
+        if (bot != null && bot.getBackend().getType() == BotBackend.Type.MOB) {
+            bot.discard();
+        }
+    }
+
+    /**
+     * Keep mob bodies from turning into another mob, e.g. a zombie into a drowned after
+     * sinking in water, which would swap the body out from under the AI
+     */
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onEntityTransform(EntityTransformEvent event) {
+        if (event.getEntity() instanceof LivingEntity entity && getBotFromEntity(entity) != null) {
+            event.setCancelled(true);
+        }
     }
 
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
+        long start = plugin.getTickProfiler().start();
         releaseTarget(event.getPlayer().getUniqueId());
+        plugin.getTickProfiler().record(TickProfiler.GLOBAL, TickProfiler.Phase.EVENTS, start);
     }
 }
\ No newline at end of file
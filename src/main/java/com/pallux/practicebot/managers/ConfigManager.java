@@ -1,6 +1,7 @@
 package com.pallux.practicebot.managers;
 
 import com.pallux.practicebot.PracticeBot;
+import com.pallux.practicebot.jfr.ConfigSaveEvent;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
@@ -8,18 +9,32 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 /**
- * Manages all configuration files for the plugin
+ * Manages all configuration files for the plugin.
+ *
+ * Remembers a hash of each file's content as last loaded or written by the plugin,
+ * so the {@link ConfigWatcher} can tell the plugin's own writes from edits made on disk.
+ * kits.yml is only parsed when something asks for it, which on most starts nothing
+ * does because {@link KitManager} loads its kits from the {@link KitCache}.
  */
 public class ConfigManager {
 
     private final PracticeBot plugin;
     private final Map<String, FileConfiguration> configs;
     private final Map<String, File> configFiles;
+    private final Map<String, String> contentHashes = new ConcurrentHashMap<>();
+    private final Set<String> lazyConfigs = Set.of("kits");
 
     public ConfigManager(PracticeBot plugin) {
         this.plugin = plugin;
@@ -34,6 +49,8 @@ public class ConfigManager {
         // Load default config
         plugin.saveDefaultConfig();
         configs.put("config", plugin.getConfig());
+        configFiles.put("config", new File(plugin.getDataFolder(), "config.yml"));
+        rememberContent("config");
 
         // Load custom config files
         loadCustomConfig("messages.yml");
@@ -54,6 +71,13 @@ public class ConfigManager {
             plugin.saveResource(fileName, false);
         }
 
+        String configName = fileName.replace(".yml", "");
+        if (lazyConfigs.contains(configName)) {
+            configFiles.put(configName, file);
+            rememberContent(configName);
+            return;
+        }
+
         FileConfiguration config = YamlConfiguration.loadConfiguration(file);
 
         // Load defaults
@@ -64,23 +88,75 @@ public class ConfigManager {
         }
 
         // Store configuration
-        String configName = fileName.replace(".yml", "");
         configs.put(configName, config);
         configFiles.put(configName, file);
+        rememberContent(configName);
+    }
+
+    private void rememberContent(String name) {
+        File file = configFiles.get(name);
+        try {
+            contentHashes.put(name, hash(Files.readAllBytes(file.toPath())));
+        } catch (IOException e) {
+            contentHashes.remove(name);
+        }
+    }
+
+    /**
+     * SHA-256 of a file's content, as compared by {@link #isCurrentContent}
+     */
+    public static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Hash of the content the plugin last loaded or wrote, or null if unknown
+     */
+    public String getContentHash(String name) {
+        return contentHashes.get(name);
+    }
+
+    /**
+     * Whether the content with this hash is what the plugin last loaded or wrote. Thread safe.
+     */
+    public boolean isCurrentContent(String name, String hash) {
+        return hash.equals(contentHashes.get(name));
+    }
+
+    /**
+     * Replace a configuration with one parsed elsewhere, e.g. off the main thread by the {@link ConfigWatcher}
+     */
+    public void publish(String name, YamlConfiguration config, String hash) {
+        InputStream defConfigStream = plugin.getResource(name + ".yml");
+        if (defConfigStream != null) {
+            YamlConfiguration defConfig = YamlConfiguration.loadConfiguration(new InputStreamReader(defConfigStream, StandardCharsets.UTF_8));
+            config.setDefaults(defConfig);
+        }
+        configs.put(name, config);
+        contentHashes.put(name, hash);
     }
 
     /**
      * Get a configuration by name
      */
     public FileConfiguration getConfig(String name) {
-        return configs.getOrDefault(name, null);
+        FileConfiguration config = configs.get(name);
+        if (config == null && lazyConfigs.contains(name)) {
+            loadConfig(name);
+            config = configs.get(name);
+        }
+        return config;
     }
 
     /**
      * Get the main config
      */
     public FileConfiguration getMainConfig() {
-        return plugin.getConfig();
+        return getConfig("config");
     }
 
     /**
@@ -113,7 +189,12 @@ public class ConfigManager {
 
         if (config != null && file != null) {
             try {
-                config.save(file);
+                String data = config.saveToString();
+                byte[] content = data.getBytes(StandardCharsets.UTF_8);
+                // Remember the hash before writing, so the watcher never sees our own write as an edit
+                contentHashes.put(name, hash(content));
+                Files.createDirectories(file.getParentFile().toPath());
+                Files.write(file.toPath(), content);
             } catch (IOException e) {
                 plugin.getLogger().log(Level.SEVERE, "Could not save " + name + ".yml", e);
             }
@@ -127,9 +208,20 @@ public class ConfigManager {
         if (name.equals("config")) {
             plugin.reloadConfig();
             configs.put("config", plugin.getConfig());
+            rememberContent("config");
             return;
         }
 
+        if (lazyConfigs.contains(name)) {
+            // Parsed again on next use
+            configs.remove(name);
+            rememberContent(name);
+            return;
+        }
+        loadConfig(name);
+    }
+
+    private void loadConfig(String name) {
         File file = configFiles.get(name);
         if (file != null && file.exists()) {
             FileConfiguration config = YamlConfiguration.loadConfiguration(file);
@@ -142,6 +234,7 @@ public class ConfigManager {
             }
 
             configs.put(name, config);
+            rememberContent(name);
         }
     }
 
@@ -161,17 +254,24 @@ public class ConfigManager {
      * Save all configurations
      */
     public void saveAll() {
-        plugin.saveConfig();
+        ConfigSaveEvent event = new ConfigSaveEvent();
+        event.begin();
+        saveConfig("config");
         saveConfig("messages");
         saveConfig("kits");
         saveConfig("bots");
+        event.end();
+        if (event.shouldCommit()) {
+            event.files = "config,messages,kits,bots";
+            event.commit();
+        }
     }
 
     /**
      * Get a value from main config with default
      */
     public <T> T get(String path, T defaultValue) {
-        Object value = plugin.getConfig().get(path);
+        Object value = getMainConfig().get(path);
         if (value == null) {
             return defaultValue;
         }
@@ -187,27 +287,27 @@ public class ConfigManager {
      * Get a string from config
      */
     public String getString(String path, String defaultValue) {
-        return plugin.getConfig().getString(path, defaultValue);
+        return getMainConfig().getString(path, defaultValue);
     }
 
     /**
      * Get an integer from config
      */
     public int getInt(String path, int defaultValue) {
-        return plugin.getConfig().getInt(path, defaultValue);
+        return getMainConfig().getInt(path, defaultValue);
     }
 
     /**
      * Get a double from config
      */
     public double getDouble(String path, double defaultValue) {
-        return plugin.getConfig().getDouble(path, defaultValue);
+        return getMainConfig().getDouble(path, defaultValue);
     }
 
     /**
      * Get a boolean from config
      */
     public boolean getBoolean(String path, boolean defaultValue) {
-        return plugin.getConfig().getBoolean(path, defaultValue);
+        return getMainConfig().getBoolean(path, defaultValue);
     }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+package com.pallux.practicebot.managers;
+
+import com.pallux.practicebot.PracticeBot;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional auto-reload of the config files when they are edited on disk.
+ *
+ * A background thread watches the data folder. Bursts of writes are debounced until
+ * the folder has been quiet for a moment, then each changed file is read, parsed and
+ * validated on that thread; only a valid result is handed to the main thread, which
+ * swaps it in and reloads what depends on it. Files whose content is what the plugin
+ * itself last loaded or wrote (see {@link ConfigManager#isCurrentContent}) are ignored.
+ */
+public class ConfigWatcher {
+
+    private static final Set<String> WATCHED = Set.of("config.yml", "kits.yml", "bots.yml", "messages.yml");
+
+    private final PracticeBot plugin;
+    private WatchService watchService;
+    private Thread thread;
+
+    public ConfigWatcher(PracticeBot plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        if (thread != null || !plugin.getConfigManager().getBoolean("performance.auto-reload.enabled", false)) return;
+        long debounceMillis = Math.max(50, plugin.getConfigManager().getInt("performance.auto-reload.debounce-ms", 500));
+
+        Path folder = plugin.getDataFolder().toPath();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not watch the config files for changes: " + e.getMessage());
+            return;
+        }
+
+        WatchService service = watchService;
+        thread = new Thread(() -> watch(service, folder, debounceMillis), "PracticeBot-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        plugin.getLogger().info("Watching the config files for changes.");
+    }
+
+    public void stop() {
+        if (thread == null) return;
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+        thread.interrupt();
+        thread = null;
+        watchService = null;
+    }
+
+    /**
+     * Pick up changes to the auto-reload settings
+     */
+    public void reload() {
+        stop();
+        start();
+    }
+
+    private void watch(WatchService service, Path folder, long debounceMillis) {
+        Set<String> pending = new LinkedHashSet<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = pending.isEmpty() ? service.take() : service.poll(debounceMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            if (key == null) {
+                // Quiet for a full debounce interval - the burst of writes is over
+                for (String file : pending) {
+                    process(folder.resolve(file));
+                }
+                pending.clear();
+                continue;
+            }
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.context() instanceof Path path && WATCHED.contains(path.toString())) {
+                    pending.add(path.toString());
+                }
+            }
+            if (!key.reset()) return;
+        }
+    }
+
+    private void process(Path file) {
+        String fileName = file.getFileName().toString();
+        String name = fileName.substring(0, fileName.length() - ".yml".length());
+
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not read " + fileName + " after it changed: " + e.getMessage());
+            return;
+        }
+
+        String hash = ConfigManager.hash(content);
+        if (plugin.getConfigManager().isCurrentContent(name, hash)) return;
+
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.loadFromString(new String(content, StandardCharsets.UTF_8));
+        } catch (InvalidConfigurationException e) {
+            plugin.getLogger().warning(fileName + " changed but is not valid YAML, keeping the current version: "
+                    + String.valueOf(e.getMessage()).lines().findFirst().orElse(""));
+            return;
+        }
+
+        String problem = validate(name, config);
+        if (problem != null) {
+            plugin.getLogger().warning(fileName + " changed but " + problem + ", keeping the current version.");
+            return;
+        }
+
+        if (!plugin.isEnabled()) return;
+        plugin.getServer().getScheduler().runTask(plugin, () -> apply(name, config, hash));
+    }
+
+    /**
+     * Reason the parsed file can't be used, or null if it's fine
+     */
+    private String validate(String name, YamlConfiguration config) {
+        switch (name) {
+            case "config" -> {
+                if (config.isSet("areas") && !config.isConfigurationSection("areas")) return "'areas' is not a section";
+                for (String area : sectionKeys(config, "areas")) {
+                    ConfigurationSection section = config.getConfigurationSection("areas." + area);
+                    if (section == null) return "area '" + area + "' is not a section";
+                    try {
+                        AreaDescriptor.parse(area, section);
+                    } catch (IllegalArgumentException e) {
+                        return "area '" + area + "' is invalid (" + e.getMessage() + ")";
+                    }
+                }
+            }
+            case "kits" -> {
+                if (sectionKeys(config, "kits").isEmpty()) return "it defines no kits";
+            }
+            case "bots" -> {
+                if (config.isSet("profiles") && !config.isConfigurationSection("profiles")) return "'profiles' is not a section";
+            }
+            default -> {
+            }
+        }
+        return null;
+    }
+
+    private static Set<String> sectionKeys(YamlConfiguration config, String path) {
+        ConfigurationSection section = config.getConfigurationSection(path);
+        return section == null ? Set.of() : section.getKeys(false);
+    }
+
+    private void apply(String name, YamlConfiguration config, String hash) {
+        ConfigManager configManager = plugin.getConfigManager();
+        configManager.publish(name, config, hash);
+
+        switch (name) {
+            case "config" -> {
+                plugin.getMessageUtils().reload(configManager.getMessagesConfig(), configManager.getMainConfig());
+                plugin.getTickProfiler().reload();
+                plugin.getLoadGovernor().reload();
+                plugin.getFlightRecorder().reload();
+                plugin.getAreaManager().reload(null);
+                if (!configManager.getBoolean("performance.auto-reload.enabled", false)) {
+                    stop();
+                }
+            }
+            case "kits" -> plugin.getKitManager().loadKits();
+            case "bots" -> plugin.getProfileManager().loadProfiles();
+            case "messages" -> plugin.getMessageUtils().reload(configManager.getMessagesConfig(), configManager.getMainConfig());
+            default -> {
+            }
+        }
+        plugin.getLogger().info("Applied changes to " + name + ".yml.");
+    }
+}
@@ -0,0 +1,167 @@
+package com.pallux.practicebot.managers;
+
+import com.pallux.practicebot.PracticeBot;
+import com.pallux.practicebot.bot.PracticeBotEntity;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Spreads mass despawns over several ticks so reloading or disabling a full area
+ * doesn't freeze the server.
+ *
+ * Submitted bots are stopped and unregistered right away, so they no longer fight
+ * or count towards their area; only destroying the NPCs is queued, at
+ * performance.despawn-per-tick bots per tick. Queued bodies are made invulnerable
+ * and stay known to {@link #isQueued(LivingEntity)} until they are gone, so one
+ * that dies anyway doesn't drop its kit.
+ */
+public class DespawnQueue {
+
+    private static final int REPORT_INTERVAL = 20;
+
+    private final PracticeBot plugin;
+    private final Deque<Job> jobs = new ArrayDeque<>();
+    private final Set<UUID> queuedEntities = new HashSet<>();
+    private BukkitTask task;
+
+    public DespawnQueue(PracticeBot plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Queue bots for removal. Progress is logged and, if a sender is given, reported to them.
+     */
+    public void submit(Collection<PracticeBotEntity> bots, String reason, CommandSender sender) {
+        if (bots.isEmpty()) return;
+
+        List<PracticeBotEntity> batch = new ArrayList<>(bots);
+        for (PracticeBotEntity bot : batch) {
+            LivingEntity entity = bot.getBackend().getEntity();
+            if (entity != null) {
+                entity.setInvulnerable(true);
+                queuedEntities.add(entity.getUniqueId());
+            }
+            bot.stopAI();
+            plugin.getBotManager().removeBot(bot);
+        }
+        jobs.add(new Job(batch, reason, sender));
+        start();
+    }
+
+    private void start() {
+        if (task != null) return;
+        task = new BukkitRunnable() {
+            private int ticks = 0;
+
+            @Override
+            public void run() {
+                process();
+                if (++ticks % REPORT_INTERVAL == 0 && !jobs.isEmpty()) {
+                    jobs.peek().report("despawn.progress");
+                }
+                if (jobs.isEmpty()) {
+                    task = null;
+                    cancel();
+                }
+            }
+        }.runTaskTimer(plugin, 1L, 1L);
+    }
+
+    private void process() {
+        int budget = Math.max(1, plugin.getConfigManager().getInt("performance.despawn-per-tick", 20));
+        while (budget > 0 && !jobs.isEmpty()) {
+            Job job = jobs.peek();
+            while (budget > 0 && job.done < job.bots.size()) {
+                destroy(job.bots.get(job.done++), false);
+                budget--;
+            }
+            if (job.done >= job.bots.size()) {
+                jobs.poll();
+                job.report("despawn.finished");
+            }
+        }
+    }
+
+    /**
+     * Destroy everything still queued right now. Only meant for onDisable.
+     */
+    public int drainNow() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        int count = 0;
+        for (Job job : jobs) {
+            while (job.done < job.bots.size()) {
+                destroy(job.bots.get(job.done++), true);
+                count++;
+            }
+        }
+        jobs.clear();
+        queuedEntities.clear();
+        return count;
+    }
+
+    private void destroy(PracticeBotEntity bot, boolean now) {
+        LivingEntity entity = bot.getBackend().getEntity();
+        if (entity != null) {
+            queuedEntities.remove(entity.getUniqueId());
+        }
+        if (now) {
+            bot.destroyNow();
+        } else {
+            bot.despawn();
+        }
+    }
+
+    /**
+     * Whether an entity is the body of a bot waiting to be destroyed
+     */
+    public boolean isQueued(LivingEntity entity) {
+        return !queuedEntities.isEmpty() && queuedEntities.contains(entity.getUniqueId());
+    }
+
+    public int getPending() {
+        int pending = 0;
+        for (Job job : jobs) {
+            pending += job.bots.size() - job.done;
+        }
+        return pending;
+    }
+
+    private class Job {
+        private final List<PracticeBotEntity> bots;
+        private final String reason;
+        private final CommandSender sender;
+        private int done = 0;
+
+        Job(List<PracticeBotEntity> bots, String reason, CommandSender sender) {
+            this.bots = bots;
+            this.reason = reason;
+            this.sender = sender;
+        }
+
+        void report(String messagePath) {
+            plugin.getLogger().info("Despawning bots (" + reason + "): " + done + "/" + bots.size());
+            if (sender != null) {
+                plugin.getMessageUtils().sendMessage(sender, messagePath, Map.of(
+                        "reason", reason,
+                        "done", String.valueOf(done),
+                        "total", String.valueOf(bots.size())
+                ));
+            }
+        }
+    }
+}
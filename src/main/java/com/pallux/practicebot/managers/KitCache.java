@@ -0,0 +1,138 @@
+package com.pallux.practicebot.managers;
+
+import com.pallux.practicebot.PracticeBot;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Binary cache of the parsed kits, so startup doesn't walk kits.yml item by item.
+ *
+ * Items are stored with {@link ItemStack#serializeAsBytes()}. The cache is keyed by
+ * the hash of kits.yml and the server version; if either changes the cache is
+ * ignored and rewritten after the YAML has been parsed again.
+ */
+public final class KitCache {
+
+    private static final int MAGIC = 0x50424B43; // "PBKC"
+    private static final int FORMAT = 1;
+
+    private final PracticeBot plugin;
+    private final File file;
+
+    public KitCache(PracticeBot plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "cache/kits.bin");
+    }
+
+    /**
+     * Cache key for a kits.yml content hash on this server
+     */
+    public String key(String kitsHash) {
+        return kitsHash + "|" + plugin.getServer().getVersion();
+    }
+
+    /**
+     * The cached kits for this key, or null if there is no usable cache
+     */
+    public Map<String, KitManager.Kit> load(String key) {
+        if (!file.isFile()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT || !in.readUTF().equals(key)) return null;
+
+            int count = in.readInt();
+            Map<String, KitManager.Kit> kits = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                KitManager.Kit kit = new KitManager.Kit(in.readUTF());
+                kit.setHelmet(readItem(in));
+                kit.setChestplate(readItem(in));
+                kit.setLeggings(readItem(in));
+                kit.setBoots(readItem(in));
+                kit.setOffhand(readItem(in));
+                int items = in.readInt();
+                for (int j = 0; j < items; j++) {
+                    int slot = in.readInt();
+                    ItemStack item = readItem(in);
+                    if (item != null) kit.addInventoryItem(slot, item);
+                }
+                kits.put(kit.getName(), kit);
+            }
+            return kits;
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().warning("Ignoring unreadable kit cache: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Serialize the kits now and write them in the background
+     */
+    public void save(String key, Collection<KitManager.Kit> kits) {
+        byte[] data;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeUTF(key);
+            out.writeInt(kits.size());
+            for (KitManager.Kit kit : kits) {
+                out.writeUTF(kit.getName());
+                writeItem(out, kit.getHelmet());
+                writeItem(out, kit.getChestplate());
+                writeItem(out, kit.getLeggings());
+                writeItem(out, kit.getBoots());
+                writeItem(out, kit.getOffhand());
+                out.writeInt(kit.getInventoryItems().size());
+                for (Map.Entry<Integer, ItemStack> entry : kit.getInventoryItems().entrySet()) {
+                    out.writeInt(entry.getKey());
+                    writeItem(out, entry.getValue());
+                }
+            }
+            out.flush();
+            data = bytes.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().warning("Could not serialize the kit cache: " + e.getMessage());
+            return;
+        }
+
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                Files.createDirectories(file.getParentFile().toPath());
+                File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+                Files.write(temp.toPath(), data);
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not write the kit cache: " + e.getMessage());
+            }
+        });
+    }
+
+    private static void writeItem(DataOutputStream out, ItemStack item) throws IOException {
+        if (item == null || item.getType().isAir()) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = item.serializeAsBytes();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static ItemStack readItem(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return ItemStack.deserializeBytes(bytes);
+    }
+}
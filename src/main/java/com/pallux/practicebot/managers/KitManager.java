@@ -6,6 +6,7 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.EntityEquipment;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.meta.PotionMeta;
@@ -21,18 +22,39 @@ public class KitManager {
 
     private final PracticeBot plugin;
     private final Map<String, Kit> kits;
+    private final KitCache cache;
 
     public KitManager(PracticeBot plugin) {
         this.plugin = plugin;
         this.kits = new HashMap<>();
+        this.cache = new KitCache(plugin);
         loadKits();
     }
 
     /**
-     * Load all kits from kits.yml
+     * Load all kits, from the binary cache if kits.yml hasn't changed since it was
+     * written and by parsing kits.yml otherwise
      */
     public void loadKits() {
         kits.clear();
+        String hash = plugin.getConfigManager().getContentHash("kits");
+        String key = hash != null ? cache.key(hash) : null;
+        if (key != null) {
+            Map<String, Kit> cached = cache.load(key);
+            if (cached != null) {
+                kits.putAll(cached);
+                plugin.getLogger().info("Loaded " + kits.size() + " kit(s) from cache");
+                return;
+            }
+        }
+
+        parseKits();
+        if (key != null && !kits.isEmpty()) {
+            cache.save(key, kits.values());
+        }
+    }
+
+    private void parseKits() {
         FileConfiguration config = plugin.getConfigManager().getKitsConfig();
         ConfigurationSection kitsSection = config.getConfigurationSection("kits");
 
@@ -303,5 +325,26 @@ public class KitManager {
 
             player.updateInventory();
         }
+
+        /**
+         * Dress an entity that has no inventory: armor, off hand, and the first
+         * hotbar item in the main hand
+         */
+        public void equip(EntityEquipment equipment) {
+            equipment.clear();
+            if (helmet != null) equipment.setHelmet(helmet.clone());
+            if (chestplate != null) equipment.setChestplate(chestplate.clone());
+            if (leggings != null) equipment.setLeggings(leggings.clone());
+            if (boots != null) equipment.setBoots(boots.clone());
+            if (offhand != null) equipment.setItemInOffHand(offhand.clone());
+
+            for (int slot = 0; slot < 9; slot++) {
+                ItemStack item = inventoryItems.get(slot);
+                if (item != null) {
+                    equipment.setItemInMainHand(item.clone());
+                    break;
+                }
+            }
+        }
     }
 }
\ No newline at end of file
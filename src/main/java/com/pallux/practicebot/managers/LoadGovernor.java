@@ -0,0 +1,138 @@
+package com.pallux.practicebot.managers;
+
+import com.pallux.practicebot.PracticeBot;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Watches the server tick time and scales bot work down when the server is overloaded.
+ *
+ * Level 0 is normal operation. Level 1 disables expensive abilities (trident, rod
+ * and potion throws). Every level above that applies the next multiplier from
+ * performance.governor.bot-scale-steps to the bot count of all areas.
+ */
+public class LoadGovernor {
+
+    private final PracticeBot plugin;
+    private BukkitTask task;
+
+    private boolean enabled;
+    private int sampleInterval;
+    private double highMspt;
+    private double lowMspt;
+    private int holdTicks;
+    private final List<Double> scaleSteps = new ArrayList<>();
+
+    private int level = 0;
+    private int lastChangeTick = 0;
+    private double lastMspt = 0.0;
+    private double lastTps = 20.0;
+
+    public LoadGovernor(PracticeBot plugin) {
+        this.plugin = plugin;
+        loadSettings();
+    }
+
+    /**
+     * Load governor settings from config.yml
+     */
+    private void loadSettings() {
+        enabled = plugin.getConfigManager().getBoolean("performance.governor.enabled", true);
+        sampleInterval = Math.max(1, plugin.getConfigManager().getInt("performance.governor.sample-interval", 40));
+        highMspt = plugin.getConfigManager().getDouble("performance.governor.high-mspt", 45.0);
+        lowMspt = Math.min(highMspt, plugin.getConfigManager().getDouble("performance.governor.low-mspt", 35.0));
+        holdTicks = Math.max(0, plugin.getConfigManager().getInt("performance.governor.hold-ticks", 200));
+
+        scaleSteps.clear();
+        for (Double step : plugin.getConfigManager().getMainConfig().getDoubleList("performance.governor.bot-scale-steps")) {
+            if (step != null && step > 0.0 && step < 1.0) {
+                scaleSteps.add(step);
+            }
+        }
+        if (scaleSteps.isEmpty()) {
+            scaleSteps.addAll(List.of(0.75, 0.5, 0.25));
+        }
+    }
+
+    public void start() {
+        stop();
+        if (!enabled) return;
+
+        task = new BukkitRunnable() {
+            @Override
+            public void run() {
+                sample();
+            }
+        }.runTaskTimer(plugin, sampleInterval, sampleInterval);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    public void reload() {
+        stop();
+        loadSettings();
+        level = 0;
+        start();
+    }
+
+    private void sample() {
+        lastMspt = plugin.getServer().getAverageTickTime();
+        lastTps = plugin.getServer().getTPS()[0];
+
+        int currentTick = plugin.getServer().getCurrentTick();
+        if (currentTick - lastChangeTick < holdTicks) return;
+
+        if (lastMspt > highMspt && level < getMaxLevel()) {
+            setLevel(level + 1, currentTick);
+        } else if (lastMspt < lowMspt && level > 0) {
+            setLevel(level - 1, currentTick);
+        }
+    }
+
+    private void setLevel(int newLevel, int currentTick) {
+        int oldLevel = level;
+        level = newLevel;
+        lastChangeTick = currentTick;
+        plugin.getLogger().info(String.format("Server MSPT %.1f - governor %s level %d (%s, bot scale %.0f%%).",
+                lastMspt, newLevel > oldLevel ? "raised to" : "lowered to", level,
+                areAbilitiesEnabled() ? "abilities enabled" : "expensive abilities disabled", getBotScale() * 100));
+    }
+
+    /**
+     * Whether bots may use trident, rod and potion throws
+     */
+    public boolean areAbilitiesEnabled() {
+        return level == 0;
+    }
+
+    /**
+     * Multiplier currently applied to the configured bot count of every area
+     */
+    public double getBotScale() {
+        return level <= 1 ? 1.0 : scaleSteps.get(level - 2);
+    }
+
+    /**
+     * Scale a configured bot count to the current effective target
+     */
+    public int scaleBotCount(int botCount) {
+        if (level <= 1) return botCount;
+        return (int) Math.ceil(botCount * getBotScale());
+    }
+
+    public int getLevel() { return level; }
+    public int getMaxLevel() { return scaleSteps.size() + 1; }
+    public boolean isEnabled() { return enabled; }
+    public double getLastMspt() { return lastMspt; }
+    public double getLastTps() { return lastTps; }
+    public double getHighMspt() { return highMspt; }
+    public double getLowMspt() { return lowMspt; }
+}
@@ -0,0 +1,184 @@
+package com.pallux.practicebot.managers;
+
+import com.pallux.practicebot.PracticeBot;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.*;
+
+/**
+ * Loads the bot profiles from bots.yml into a typed table.
+ *
+ * A profile decides how expensive a bot is to run: how often it thinks
+ * (reaction interval), how often it sweeps for a better target on its own
+ * (retarget interval) and which abilities it may use. Easy bots think less often
+ * and skip abilities, so an area of mixed difficulty costs less than one full of experts.
+ */
+public class ProfileManager {
+
+    private final PracticeBot plugin;
+    private final Map<String, Profile> profiles = new HashMap<>();
+    private Profile defaultProfile;
+
+    public ProfileManager(PracticeBot plugin) {
+        this.plugin = plugin;
+        loadProfiles();
+    }
+
+    /**
+     * Load all profiles from bots.yml
+     */
+    public void loadProfiles() {
+        profiles.clear();
+        FileConfiguration config = plugin.getConfigManager().getBotsConfig();
+        ConfigurationSection profilesSection = config.getConfigurationSection("profiles");
+
+        if (profilesSection != null) {
+            for (String name : profilesSection.getKeys(false)) {
+                ConfigurationSection section = profilesSection.getConfigurationSection(name);
+                if (section == null) {
+                    plugin.getLogger().warning("Configuration error for bot profile '" + name + "': not a section. Skipping.");
+                    continue;
+                }
+                profiles.put(name.toLowerCase(), loadProfile(name, section, config.getConfigurationSection("behavior-modifiers." + name)));
+            }
+        }
+
+        // Areas without a profile list keep the full-skill bots they had before profiles
+        // existed, unless bots.yml names a default profile. Older bots.yml files shipped an
+        // unused default-profile key, so only the newer area-default-profile key counts.
+        if (config.isSet("default-profile") && !config.isSet("area-default-profile")) {
+            plugin.getLogger().info("Ignoring legacy default-profile '" + config.getString("default-profile")
+                    + "' in bots.yml; areas without profiles spawn full-skill bots. Set area-default-profile to change this.");
+        }
+        String defaultName = config.getString("area-default-profile");
+        defaultProfile = defaultName != null ? profiles.get(defaultName.toLowerCase()) : null;
+        if (defaultProfile == null) {
+            if (defaultName != null) {
+                plugin.getLogger().warning("Default bot profile '" + defaultName + "' does not exist, using full-skill bots.");
+            }
+            defaultProfile = fallbackProfile();
+        }
+
+        plugin.getLogger().info("Loaded " + profiles.size() + " bot profile(s)");
+    }
+
+    private Profile loadProfile(String name, ConfigurationSection section, ConfigurationSection modifiers) {
+        int difficulty = section.getInt("difficulty", 2);
+        int globalSweep = plugin.getConfigManager().getInt("bot-behavior.retarget-sweep-ticks", 200);
+
+        EnumSet<Ability> abilities = EnumSet.noneOf(Ability.class);
+        if (section.isList("abilities")) {
+            for (String ability : section.getStringList("abilities")) {
+                try {
+                    abilities.add(Ability.valueOf(ability.toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Unknown ability '" + ability + "' in bot profile '" + name + "'");
+                }
+            }
+        } else {
+            abilities = EnumSet.allOf(Ability.class);
+        }
+
+        double strafe = plugin.getConfigManager().getDouble("combat.strafe-chance", 0.7);
+        return new Profile(
+                name,
+                section.getString("kit"),
+                difficulty,
+                section.getDouble("health-multiplier", 1.0),
+                section.getDouble("ai-skill", 1.0),
+                Math.max(1, section.getInt("reaction-interval", Math.max(1, 5 - difficulty))),
+                Math.max(1, section.getInt("retarget-interval", globalSweep)),
+                abilities,
+                modifiers != null ? modifiers.getDouble("combo-chance", 0.5) : 0.5,
+                modifiers != null ? modifiers.getDouble("strafe-chance", strafe) : strafe,
+                modifiers != null ? modifiers.getDouble("critical-chance", 0.0) : 0.0,
+                modifiers != null ? modifiers.getDouble("rod-chance", 1.0) : 1.0
+        );
+    }
+
+    /**
+     * Full-skill profile matching the behaviour bots had before profiles existed
+     */
+    private Profile fallbackProfile() {
+        return new Profile("full-skill", null, 4, 1.0, 1.0, 1,
+                Math.max(1, plugin.getConfigManager().getInt("bot-behavior.retarget-sweep-ticks", 200)),
+                EnumSet.allOf(Ability.class), 0.5,
+                plugin.getConfigManager().getDouble("combat.strafe-chance", 0.7), 0.0, 1.0);
+    }
+
+    public Profile getProfile(String name) {
+        return name == null ? null : profiles.get(name.toLowerCase());
+    }
+
+    /**
+     * Profile for areas without a profile list: the one named by area-default-profile in
+     * bots.yml, or full-skill bots if there is none
+     */
+    public Profile getDefaultProfile() {
+        return defaultProfile;
+    }
+
+    public Set<String> getProfileNames() {
+        return Collections.unmodifiableSet(profiles.keySet());
+    }
+
+    /**
+     * Abilities a profile can allow its bots to use
+     */
+    public enum Ability {
+        ROD, POTION, TRIDENT
+    }
+
+    /**
+     * Immutable bot profile
+     */
+    public static final class Profile {
+        private final String name;
+        private final String kit;
+        private final int difficulty;
+        private final double healthMultiplier;
+        private final double aiSkill;
+        private final int reactionInterval;
+        private final int retargetInterval;
+        private final Set<Ability> abilities;
+        private final double comboChance;
+        private final double strafeChance;
+        private final double criticalChance;
+        private final double rodChance;
+
+        Profile(String name, String kit, int difficulty, double healthMultiplier, double aiSkill,
+                int reactionInterval, int retargetInterval, EnumSet<Ability> abilities,
+                double comboChance, double strafeChance, double criticalChance, double rodChance) {
+            this.name = name;
+            this.kit = kit;
+            this.difficulty = difficulty;
+            this.healthMultiplier = healthMultiplier;
+            this.aiSkill = aiSkill;
+            this.reactionInterval = reactionInterval;
+            this.retargetInterval = retargetInterval;
+            this.abilities = Collections.unmodifiableSet(abilities);
+            this.comboChance = comboChance;
+            this.strafeChance = strafeChance;
+            this.criticalChance = criticalChance;
+            this.rodChance = rodChance;
+        }
+
+        public boolean hasAbility(Ability ability) {
+            return abilities.contains(ability);
+        }
+
+        public String getName() { return name; }
+        public String getKit() { return kit; }
+        public int getDifficulty() { return difficulty; }
+        public double getHealthMultiplier() { return healthMultiplier; }
+        public double getAiSkill() { return aiSkill; }
+        public int getReactionInterval() { return reactionInterval; }
+        public int getRetargetInterval() { return retargetInterval; }
+        public Set<Ability> getAbilities() { return abilities; }
+        public double getComboChance() { return comboChance; }
+        public double getStrafeChance() { return strafeChance; }
+        public double getCriticalChance() { return criticalChance; }
+        public double getRodChance() { return rodChance; }
+    }
+}
@@ -0,0 +1,44 @@
+package com.pallux.practicebot.managers;
+
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The practice areas of one world and whether they are being ticked.
+ *
+ * A group without players is suspended: its areas are skipped by management and
+ * matchmaking and its bots' AI doesn't tick until a player arrives. The player count
+ * is kept up to date by the {@link AreaManager}'s join, quit and world change handlers
+ * instead of polling the online players. Must only be used on the main thread.
+ */
+public final class WorldGroup {
+
+    private final World world;
+    private final List<AreaManager.PracticeArea> areas = new ArrayList<>();
+    private int playerCount = 0;
+    private boolean active = true;
+
+    WorldGroup(World world) {
+        this.world = world;
+    }
+
+    public World getWorld() { return world; }
+
+    /**
+     * Whether this world's areas and bots are being ticked
+     */
+    public boolean isActive() { return active; }
+
+    List<AreaManager.PracticeArea> areas() { return areas; }
+    int getPlayerCount() { return playerCount; }
+
+    void setPlayerCount(int playerCount) {
+        this.playerCount = Math.max(0, playerCount);
+    }
+
+    void setActive(boolean active) {
+        this.active = active;
+    }
+}
@@ -0,0 +1,52 @@
+package com.pallux.practicebot.recorder;
+
+/**
+ * Binary layout of the combat flight recorder, shared by {@link FlightRecorder}
+ * and the offline {@link FlightRecordReader}. Kept free of Bukkit types so the
+ * reader runs outside the server.
+ *
+ * A dump is a 32 byte header followed by fixed 32 byte records, oldest first:
+ * <pre>
+ * header: int magic, short version, short recordSize, int count, long dumpedAtMillis, int dumpedAtTick, 8 bytes padding
+ * record: int tick, int botId, float x, float y, float z, int targetEntityId, float health, byte action, 3 bytes padding
+ * </pre>
+ * botId is the bot's Citizens NPC id (entity id for mob bots), targetEntityId the Bukkit entity id of its target (-1 for none).
+ */
+public final class FlightRecord {
+
+    public static final int MAGIC = 0x50424652; // "PBFR"
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 32;
+
+    public static final int TICK = 0;
+    public static final int BOT_ID = 4;
+    public static final int X = 8;
+    public static final int Y = 12;
+    public static final int Z = 16;
+    public static final int TARGET = 20;
+    public static final int HEALTH = 24;
+    public static final int ACTION = 28;
+
+    private FlightRecord() {
+    }
+
+    public enum Action {
+        WANDER,
+        CHASE,
+        ATTACK,
+        ROD,
+        POTION,
+        TRIDENT,
+        TARGET,
+        DAMAGED,
+        SPAWN,
+        DEATH;
+
+        private static final Action[] VALUES = values();
+
+        public static String nameOf(int code) {
+            return code >= 0 && code < VALUES.length ? VALUES[code].name() : "UNKNOWN_" + code;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.pallux.practicebot.recorder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Offline reader for flight recorder dumps. Runs without a server:
+ * <pre>
+ * java -cp PracticeBot.jar com.pallux.practicebot.recorder.FlightRecordReader &lt;dump.pbfr&gt; [csv|json] &gt; out.csv
+ * </pre>
+ */
+public final class FlightRecordReader {
+
+    private FlightRecordReader() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: FlightRecordReader <dump file> [csv|json]");
+            System.exit(1);
+        }
+        String format = args.length >= 2 ? args[1].toLowerCase(Locale.ROOT) : "csv";
+        if (!format.equals("csv") && !format.equals("json")) {
+            System.err.println("Unknown format '" + args[1] + "', expected csv or json");
+            System.exit(1);
+        }
+
+        try (FileChannel channel = FileChannel.open(Path.of(args[0]), StandardOpenOption.READ);
+             PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)))) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() < FlightRecord.HEADER_SIZE || in.getInt(0) != FlightRecord.MAGIC) {
+                System.err.println("Not a PracticeBot flight recorder dump: " + args[0]);
+                System.exit(1);
+            }
+            short version = in.getShort(4);
+            int recordSize = in.getShort(6);
+            int count = in.getInt(8);
+            long dumpedAt = in.getLong(12);
+            int dumpedAtTick = in.getInt(20);
+            if (version != FlightRecord.VERSION || recordSize < FlightRecord.RECORD_SIZE) {
+                System.err.println("Unsupported dump version " + version + " (record size " + recordSize + ")");
+                System.exit(1);
+            }
+            count = (int) Math.min(count, (channel.size() - FlightRecord.HEADER_SIZE) / recordSize);
+
+            if (format.equals("csv")) {
+                out.println("tick,bot_id,x,y,z,target_entity_id,health,action");
+            } else {
+                out.println("{\"dumped_at\":" + dumpedAt + ",\"dumped_at_tick\":" + dumpedAtTick + ",\"records\":[");
+            }
+
+            for (int i = 0; i < count; i++) {
+                int base = FlightRecord.HEADER_SIZE + i * recordSize;
+                int tick = in.getInt(base + FlightRecord.TICK);
+                int botId = in.getInt(base + FlightRecord.BOT_ID);
+                float x = in.getFloat(base + FlightRecord.X);
+                float y = in.getFloat(base + FlightRecord.Y);
+                float z = in.getFloat(base + FlightRecord.Z);
+                int target = in.getInt(base + FlightRecord.TARGET);
+                float health = in.getFloat(base + FlightRecord.HEALTH);
+                String action = FlightRecord.Action.nameOf(in.get(base + FlightRecord.ACTION));
+
+                if (format.equals("csv")) {
+                    out.printf(Locale.ROOT, "%d,%d,%.3f,%.3f,%.3f,%d,%.2f,%s%n", tick, botId, x, y, z, target, health, action);
+                } else {
+                    out.printf(Locale.ROOT, "{\"tick\":%d,\"bot_id\":%d,\"x\":%.3f,\"y\":%.3f,\"z\":%.3f,\"target_entity_id\":%d,\"health\":%.2f,\"action\":\"%s\"}%s%n",
+                            tick, botId, x, y, z, target, health, action, i < count - 1 ? "," : "");
+                }
+            }
+
+            if (format.equals("json")) {
+                out.println("]}");
+            }
+        }
+    }
+}
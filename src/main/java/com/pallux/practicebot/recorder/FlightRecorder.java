@@ -0,0 +1,142 @@
+package com.pallux.practicebot.recorder;
+
+import com.pallux.practicebot.PracticeBot;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Always-on combat flight recorder. Every bot writes one fixed-size record per AI
+ * tick, plus one per notable event, into a ring buffer held off-heap in a direct
+ * ByteBuffer, so recording costs a few absolute puts and no allocation or GC work.
+ *
+ * The ring only lives in memory. {@link #dump(File, Consumer)} copies it on the
+ * main thread and writes the copy to a memory-mapped file asynchronously; use
+ * {@link FlightRecordReader} to turn a dump into CSV or JSON.
+ */
+public class FlightRecorder {
+
+    private static final int MIN_CAPACITY = 1024;
+    // 128 MB of records; well below the largest buffer an int can index
+    private static final int MAX_CAPACITY = Math.min(4 * 1024 * 1024, Integer.MAX_VALUE / FlightRecord.RECORD_SIZE);
+
+    private final PracticeBot plugin;
+    private boolean enabled;
+    private int capacity;
+    private ByteBuffer ring;
+    private long written = 0;
+
+    public FlightRecorder(PracticeBot plugin) {
+        this.plugin = plugin;
+        loadSettings();
+    }
+
+    /**
+     * Load recorder settings from config.yml. Resizing the ring drops what was recorded so far.
+     */
+    private void loadSettings() {
+        enabled = plugin.getConfigManager().getBoolean("performance.recorder.enabled", true);
+        int configured = plugin.getConfigManager().getInt("performance.recorder.capacity", 262144);
+        int newCapacity = Math.max(MIN_CAPACITY, Math.min(MAX_CAPACITY, configured));
+        if (newCapacity != configured) {
+            plugin.getLogger().warning("performance.recorder.capacity must be between " + MIN_CAPACITY
+                    + " and " + MAX_CAPACITY + ", using " + newCapacity + ".");
+        }
+        if (!enabled) {
+            ring = null;
+            written = 0;
+        } else if (ring == null || newCapacity != capacity) {
+            ring = ByteBuffer.allocateDirect(newCapacity * FlightRecord.RECORD_SIZE);
+            written = 0;
+        }
+        capacity = newCapacity;
+    }
+
+    public void reload() {
+        loadSettings();
+    }
+
+    /**
+     * Append a record. Must be called on the main thread; {@code location} is only read.
+     */
+    public void record(int botId, Location location, Entity target, double health, FlightRecord.Action action) {
+        if (!enabled) return;
+        int base = (int) (written++ % capacity) * FlightRecord.RECORD_SIZE;
+        ring.putInt(base + FlightRecord.TICK, plugin.getServer().getCurrentTick());
+        ring.putInt(base + FlightRecord.BOT_ID, botId);
+        ring.putFloat(base + FlightRecord.X, (float) location.getX());
+        ring.putFloat(base + FlightRecord.Y, (float) location.getY());
+        ring.putFloat(base + FlightRecord.Z, (float) location.getZ());
+        ring.putInt(base + FlightRecord.TARGET, target != null ? target.getEntityId() : -1);
+        ring.putFloat(base + FlightRecord.HEALTH, (float) health);
+        ring.put(base + FlightRecord.ACTION, (byte) action.ordinal());
+    }
+
+    /**
+     * Write the current ring contents to a file. The copy is taken right away, the file is
+     * written off the main thread and the callback runs back on the main thread with the
+     * number of records written, or -1 on failure.
+     */
+    public void dump(File file, Consumer<Integer> callback) {
+        if (!enabled) {
+            callback.accept(-1);
+            return;
+        }
+
+        int count = getRecordCount();
+        int dumpedAtTick = plugin.getServer().getCurrentTick();
+        ByteBuffer copy = ByteBuffer.allocateDirect(count * FlightRecord.RECORD_SIZE);
+        int oldest = (int) ((written - count) % capacity);
+        ByteBuffer view = ring.duplicate();
+        view.limit(capacity * FlightRecord.RECORD_SIZE);
+        view.position(oldest * FlightRecord.RECORD_SIZE);
+        int tail = Math.min(count, capacity - oldest) * FlightRecord.RECORD_SIZE;
+        view.limit(view.position() + tail);
+        copy.put(view);
+        if (tail < copy.capacity()) {
+            view.clear();
+            view.limit(copy.capacity() - tail);
+            copy.put(view);
+        }
+        copy.flip();
+
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            int result = count;
+            try {
+                File folder = file.getParentFile();
+                if (folder != null && !folder.exists()) folder.mkdirs();
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                            FlightRecord.HEADER_SIZE + (long) count * FlightRecord.RECORD_SIZE);
+                    out.putInt(FlightRecord.MAGIC);
+                    out.putShort(FlightRecord.VERSION);
+                    out.putShort((short) FlightRecord.RECORD_SIZE);
+                    out.putInt(count);
+                    out.putLong(System.currentTimeMillis());
+                    out.putInt(dumpedAtTick);
+                    out.position(FlightRecord.HEADER_SIZE);
+                    out.put(copy);
+                    out.force();
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not write flight recorder dump: " + e.getMessage());
+                result = -1;
+            }
+            int finalResult = result;
+            plugin.getServer().getScheduler().runTask(plugin, () -> callback.accept(finalResult));
+        });
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public int getCapacity() { return capacity; }
+    public int getRecordCount() { return (int) Math.min(written, capacity); }
+    public long getWritten() { return written; }
+}
@@ -9,8 +9,8 @@ import java.util.Map;
 
 public class MessageUtils {
 
-    private final FileConfiguration messagesConfig;
-    private final FileConfiguration config;
+    private FileConfiguration messagesConfig;
+    private FileConfiguration config;
     private String prefix;
 
     public MessageUtils(FileConfiguration messagesConfig, FileConfiguration config) {
@@ -27,6 +27,15 @@ public class MessageUtils {
         loadPrefix();
     }
 
+    /**
+     * Switch to freshly loaded configurations, which replace the old objects on every reload
+     */
+    public void reload(FileConfiguration messagesConfig, FileConfiguration config) {
+        this.messagesConfig = messagesConfig;
+        this.config = config;
+        loadPrefix();
+    }
+
     public void sendMessage(CommandSender sender, String path, Map<String, String> placeholders) {
         String message = getMessage(path, placeholders);
         sender.sendMessage(ColorUtils.colorize(prefix + message));
@@ -0,0 +1,167 @@
+package com.pallux.practicebot.utils;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+
+/**
+ * List whose contents are published as an immutable array snapshot.
+ *
+ * Readers grab the current snapshot with one volatile read and iterate it without
+ * locks or copies; a snapshot never changes once published, so iterating while
+ * the list is modified is safe and sees a consistent state. Writers are serialized
+ * and pay for a new array only when membership actually changes, which for bots
+ * means on spawn and despawn.
+ */
+public final class SnapshotList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private volatile Object[] snapshot = EMPTY;
+
+    private void publish(Object[] next) {
+        snapshot = next;
+    }
+
+    /**
+     * The current contents as an immutable list. Later changes don't affect it.
+     */
+    public List<E> snapshot() {
+        return new View<>(snapshot);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        return (E) snapshot[index];
+    }
+
+    @Override
+    public int size() {
+        return snapshot.length;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return snapshot().iterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return snapshot().spliterator();
+    }
+
+    @Override
+    public synchronized boolean add(E element) {
+        Object[] current = snapshot;
+        Object[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = element;
+        publish(next);
+        return true;
+    }
+
+    /**
+     * Add an element unless it is already present
+     */
+    public synchronized boolean addIfAbsent(E element) {
+        if (indexOf(element) >= 0) return false;
+        return add(element);
+    }
+
+    @Override
+    public synchronized boolean remove(Object element) {
+        Object[] current = snapshot;
+        int index = indexOf(element);
+        if (index < 0) return false;
+        Object[] next = new Object[current.length - 1];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+        publish(next);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean removeIf(Predicate<? super E> filter) {
+        List<E> removed = removeMatching(filter);
+        return !removed.isEmpty();
+    }
+
+    /**
+     * Remove every element matching the filter and return them, publishing at most once
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized List<E> removeMatching(Predicate<? super E> filter) {
+        Object[] current = snapshot;
+        Object[] kept = new Object[current.length];
+        List<E> removed = new ArrayList<>();
+        int size = 0;
+        for (Object element : current) {
+            if (filter.test((E) element)) {
+                removed.add((E) element);
+            } else {
+                kept[size++] = element;
+            }
+        }
+        if (!removed.isEmpty()) {
+            publish(Arrays.copyOf(kept, size));
+        }
+        return removed;
+    }
+
+    /**
+     * Remove elements from the end until at most {@code size} remain, returning the removed ones.
+     * A negative size empties the list.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized List<E> trimTo(int size) {
+        size = Math.max(0, size);
+        Object[] current = snapshot;
+        if (current.length <= size) return List.of();
+        List<E> removed = new ArrayList<>(current.length - size);
+        for (int i = current.length - 1; i >= size; i--) {
+            removed.add((E) current[i]);
+        }
+        publish(Arrays.copyOf(current, size));
+        return removed;
+    }
+
+    /**
+     * Remove everything and return what was there
+     */
+    public synchronized List<E> drain() {
+        List<E> removed = snapshot();
+        if (!removed.isEmpty()) {
+            publish(EMPTY);
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized void clear() {
+        drain();
+    }
+
+    private static final class View<E> extends AbstractList<E> implements RandomAccess {
+        private final Object[] elements;
+
+        View(Object[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            return (E) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.pallux.practicebot.utils;
+
+import com.pallux.practicebot.PracticeBot;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lightweight nanoTime profiler for the work PracticeBot does on the main thread.
+ * Samples are grouped per area and per phase into rolling histograms.
+ */
+public class TickProfiler {
+
+    public static final String GLOBAL = "global";
+
+    private final PracticeBot plugin;
+    private final Map<String, Map<Phase, RollingHistogram>> histograms = new ConcurrentHashMap<>();
+    private boolean enabled;
+    private int sampleWindow;
+    private int tickWindow;
+
+    public TickProfiler(PracticeBot plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+
+    /**
+     * Reload profiler settings from config.yml
+     */
+    public void reload() {
+        this.enabled = plugin.getConfigManager().getBoolean("performance.profiler.enabled", true);
+        this.sampleWindow = Math.max(16, plugin.getConfigManager().getInt("performance.profiler.sample-window", 1200));
+        this.tickWindow = Math.max(20, plugin.getConfigManager().getInt("performance.profiler.tick-window", 600));
+        histograms.clear();
+    }
+
+    /**
+     * Start timing a phase. Returns 0 when the profiler is disabled.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Record the time elapsed since {@link #start()} for a phase in an area
+     */
+    public void record(String area, Phase phase, long start) {
+        if (start == 0L || !enabled) return;
+        long elapsed = System.nanoTime() - start;
+        histograms.computeIfAbsent(area == null ? GLOBAL : area, k -> new EnumMap<>(Phase.class))
+                .computeIfAbsent(phase, k -> new RollingHistogram(sampleWindow, tickWindow))
+                .add(elapsed, plugin.getServer().getCurrentTick());
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public int getTickWindow() { return tickWindow; }
+
+    /**
+     * Get a sorted view of the recorded histograms per area
+     */
+    public Map<String, Map<Phase, RollingHistogram>> getHistograms() {
+        return Collections.unmodifiableMap(new TreeMap<>(histograms));
+    }
+
+    /**
+     * Average nanoseconds per tick spent in all phases of an area
+     */
+    public long getAreaNanosPerTick(Map<Phase, RollingHistogram> phases) {
+        int currentTick = plugin.getServer().getCurrentTick();
+        long total = 0;
+        for (RollingHistogram histogram : phases.values()) {
+            total += histogram.getWindowTotal(currentTick);
+        }
+        return total / tickWindow;
+    }
+
+    /**
+     * Render all collected data as CSV
+     */
+    public String toCsv() {
+        int currentTick = plugin.getServer().getCurrentTick();
+        StringBuilder csv = new StringBuilder("area,phase,samples,p50_us,p95_us,p99_us,max_us,avg_us_per_tick,share_pct\n");
+        for (Map.Entry<String, Map<Phase, RollingHistogram>> areaEntry : getHistograms().entrySet()) {
+            long areaTotal = 0;
+            for (RollingHistogram histogram : areaEntry.getValue().values()) {
+                areaTotal += histogram.getWindowTotal(currentTick);
+            }
+            for (Map.Entry<Phase, RollingHistogram> entry : areaEntry.getValue().entrySet()) {
+                RollingHistogram histogram = entry.getValue();
+                long[] sorted = histogram.sortedSamples();
+                long phaseTotal = histogram.getWindowTotal(currentTick);
+                csv.append(areaEntry.getKey()).append(',')
+                        .append(entry.getKey().getDisplayName()).append(',')
+                        .append(histogram.getSampleCount()).append(',')
+                        .append(formatMicros(RollingHistogram.percentile(sorted, 0.50))).append(',')
+                        .append(formatMicros(RollingHistogram.percentile(sorted, 0.95))).append(',')
+                        .append(formatMicros(RollingHistogram.percentile(sorted, 0.99))).append(',')
+                        .append(formatMicros(sorted.length == 0 ? 0 : sorted[sorted.length - 1])).append(',')
+                        .append(formatMicros(phaseTotal / tickWindow)).append(',')
+                        .append(String.format(Locale.ROOT, "%.1f", areaTotal == 0 ? 0.0 : phaseTotal * 100.0 / areaTotal))
+                        .append('\n');
+            }
+        }
+        return csv.toString();
+    }
+
+    public static String formatMicros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1000.0);
+    }
+
+    /**
+     * Phases of bot work that can be timed
+     */
+    public enum Phase {
+        COOLDOWNS("cooldowns"),
+        TOTEM("totem"),
+        RETARGET("retarget"),
+        COMBAT("combat"),
+        WANDER("wander"),
+        MOVEMENT("movement"),
+        HOLOGRAM("hologram"),
+        MANAGE_BOTS("manage-bots"),
+        MATCHMAKING("matchmaking"),
+        SPAWN("spawn"),
+        SPAWN_SETUP("spawn-setup"),
+        EVENTS("events");
+
+        private final String displayName;
+
+        Phase(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    /**
+     * Fixed-size ring of recent samples for percentiles, plus per-tick totals
+     * over a rolling tick window for the share of the tick.
+     */
+    public static class RollingHistogram {
+        private final long[] samples;
+        private final long[] tickTotals;
+        private final int[] tickStamps;
+        private int next = 0;
+        private int count = 0;
+
+        RollingHistogram(int sampleWindow, int tickWindow) {
+            this.samples = new long[sampleWindow];
+            this.tickTotals = new long[tickWindow];
+            this.tickStamps = new int[tickWindow];
+            Arrays.fill(tickStamps, Integer.MIN_VALUE);
+        }
+
+        void add(long nanos, int tick) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) count++;
+
+            int slot = Math.floorMod(tick, tickTotals.length);
+            if (tickStamps[slot] != tick) {
+                tickStamps[slot] = tick;
+                tickTotals[slot] = 0;
+            }
+            tickTotals[slot] += nanos;
+        }
+
+        public int getSampleCount() {
+            return count;
+        }
+
+        /**
+         * Total nanoseconds recorded within the tick window ending at currentTick
+         */
+        public long getWindowTotal(int currentTick) {
+            long total = 0;
+            for (int i = 0; i < tickTotals.length; i++) {
+                if (tickStamps[i] != Integer.MIN_VALUE && currentTick - tickStamps[i] < tickTotals.length) {
+                    total += tickTotals[i];
+                }
+            }
+            return total;
+        }
+
+        public long[] sortedSamples() {
+            long[] copy = Arrays.copyOf(samples, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        public static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
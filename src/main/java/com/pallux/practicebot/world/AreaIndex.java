@@ -0,0 +1,81 @@
+package com.pallux.practicebot.world;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-world map from chunk to the values whose block bounds overlap that chunk.
+ *
+ * Looking up the candidates for a position is two hash lookups no matter how many
+ * values are indexed. Candidates only share a chunk with the position, so callers
+ * still do their exact bounds check on the (usually one or two) results. The index
+ * is immutable once built; owners rebuild it and swap the reference when the
+ * indexed values change.
+ */
+public class AreaIndex<T> {
+
+    private final Map<UUID, Map<Long, List<T>>> worlds;
+
+    private AreaIndex(Map<UUID, Map<Long, List<T>>> worlds) {
+        this.worlds = worlds;
+    }
+
+    public static <T> AreaIndex<T> empty() {
+        return new AreaIndex<>(Collections.emptyMap());
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Values whose bounds overlap the chunk containing the given block, never null
+     */
+    public List<T> candidates(UUID worldId, int blockX, int blockZ) {
+        Map<Long, List<T>> chunks = worlds.get(worldId);
+        if (chunks == null) return Collections.emptyList();
+        List<T> values = chunks.get(chunkKey(blockX >> 4, blockZ >> 4));
+        return values == null ? Collections.emptyList() : values;
+    }
+
+    public boolean isEmpty() {
+        return worlds.isEmpty();
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xffffffffL);
+    }
+
+    public static class Builder<T> {
+        private final Map<UUID, Map<Long, List<T>>> worlds = new HashMap<>();
+
+        /**
+         * Index a value under every chunk its block bounds overlap
+         */
+        public Builder<T> add(T value, UUID worldId, int minX, int minZ, int maxX, int maxZ) {
+            Map<Long, List<T>> chunks = worlds.computeIfAbsent(worldId, id -> new HashMap<>());
+            for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+                for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                    chunks.computeIfAbsent(chunkKey(chunkX, chunkZ), key -> new ArrayList<>(1)).add(value);
+                }
+            }
+            return this;
+        }
+
+        public AreaIndex<T> build() {
+            Map<UUID, Map<Long, List<T>>> frozen = new HashMap<>();
+            for (Map.Entry<UUID, Map<Long, List<T>>> world : worlds.entrySet()) {
+                Map<Long, List<T>> chunks = new HashMap<>();
+                for (Map.Entry<Long, List<T>> chunk : world.getValue().entrySet()) {
+                    chunks.put(chunk.getKey(), List.copyOf(chunk.getValue()));
+                }
+                frozen.put(world.getKey(), chunks);
+            }
+            return new AreaIndex<>(frozen);
+        }
+    }
+}
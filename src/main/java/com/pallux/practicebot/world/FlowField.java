@@ -0,0 +1,28 @@
+package com.pallux.practicebot.world;
+
+/**
+ * Next-hop table over a {@link NavigationGrid} towards one goal cell. Every bot
+ * chasing the same target shares one field, so steering costs one lookup per bot.
+ */
+public class FlowField {
+
+    private final NavigationGrid grid;
+    private final int goalNode;
+    private final int[] nextHop;
+
+    FlowField(NavigationGrid grid, int goalNode) {
+        this.grid = grid;
+        this.goalNode = goalNode;
+        this.nextHop = grid.computeNextHops(goalNode);
+    }
+
+    /**
+     * The next node towards the goal, or -1 if the goal can't be reached from this node
+     */
+    public int next(int node) {
+        return node < 0 ? -1 : nextHop[node];
+    }
+
+    public NavigationGrid getGrid() { return grid; }
+    public int getGoalNode() { return goalNode; }
+}
@@ -0,0 +1,70 @@
+package com.pallux.practicebot.world;
+
+import org.bukkit.Location;
+import org.bukkit.entity.LivingEntity;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Flow fields of one area, keyed by target. A field is recomputed only when its
+ * target moves to another grid cell, and fields nobody asked for recently are evicted.
+ * Main thread only.
+ */
+public class FlowFieldCache {
+
+    private final Map<UUID, Entry> fields = new HashMap<>();
+    private final Location scratchLocation = new Location(null, 0, 0, 0);
+
+    /**
+     * Get the flow field towards a target's current cell, computing it if the target
+     * has moved since the last call. Returns null if the target isn't on the grid.
+     */
+    public FlowField get(NavigationGrid grid, LivingEntity target, int currentTick) {
+        Entry entry = fields.get(target.getUniqueId());
+        if (entry != null && entry.checkedTick == currentTick && entry.grid == grid) {
+            return entry.field;
+        }
+
+        target.getLocation(scratchLocation);
+        int goal = grid.nodeAt(scratchLocation.getBlockX(), scratchLocation.getBlockY(), scratchLocation.getBlockZ());
+
+        if (entry == null) {
+            entry = new Entry();
+            fields.put(target.getUniqueId(), entry);
+        }
+        entry.grid = grid;
+        entry.checkedTick = currentTick;
+        entry.lastUsedTick = currentTick;
+
+        if (goal < 0) {
+            entry.field = null;
+        } else if (entry.field == null || entry.field.getGrid() != grid || entry.field.getGoalNode() != goal) {
+            entry.field = new FlowField(grid, goal);
+        }
+        return entry.field;
+    }
+
+    /**
+     * Drop fields that haven't been used for the given number of ticks
+     */
+    public void evict(int currentTick, int maxIdleTicks) {
+        fields.values().removeIf(entry -> currentTick - entry.lastUsedTick > maxIdleTicks);
+    }
+
+    public void clear() {
+        fields.clear();
+    }
+
+    public int size() {
+        return fields.size();
+    }
+
+    private static class Entry {
+        private NavigationGrid grid;
+        private FlowField field;
+        private int checkedTick;
+        private int lastUsedTick;
+    }
+}
@@ -0,0 +1,323 @@
+package com.pallux.practicebot.world;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Walkable navigation graph of a practice area, built off the main thread from
+ * a copy of the area's {@link VoxelMap}.
+ *
+ * A node is a block position with a solid block below and two free blocks at
+ * feet and head height. Nodes are connected to the four horizontal neighbours
+ * when the step is at most one block up (with headroom for the jump) or up to
+ * three blocks down through a free column. A handful of random waypoints are
+ * chosen and a reverse BFS from each one stores the next hop towards it for
+ * every node, so an idle bot anywhere on the grid can walk to any waypoint with
+ * one array lookup per step instead of a pathfinding search.
+ */
+public class NavigationGrid {
+
+    private static final int MAX_STEP_UP = 1;
+    private static final int MAX_DROP = 3;
+    private static final int[][] DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    private final int originX;
+    private final int originZ;
+    private final int sizeX;
+    private final int sizeZ;
+
+    // Nodes are stored column by column, ascending in y
+    private final int[] columnStart;
+    private final int[] nodeX;
+    private final int[] nodeY;
+    private final int[] nodeZ;
+
+    // Adjacency in compressed sparse row form, plus the reversed graph for goal searches
+    private final int[] edgeStart;
+    private final int[] edges;
+    private final int[] reverseStart;
+    private final int[] reverseEdges;
+
+    private final int[] waypoints;
+    private final int[][] nextHop;
+    private final int sourceVersion;
+
+    private NavigationGrid(int originX, int originZ, int sizeX, int sizeZ, int[] columnStart,
+                           int[] nodeX, int[] nodeY, int[] nodeZ, int[] edgeStart, int[] edges,
+                           int[] reverseStart, int[] reverseEdges, int[] waypoints, int[][] nextHop,
+                           int sourceVersion) {
+        this.originX = originX;
+        this.originZ = originZ;
+        this.sizeX = sizeX;
+        this.sizeZ = sizeZ;
+        this.columnStart = columnStart;
+        this.nodeX = nodeX;
+        this.nodeY = nodeY;
+        this.nodeZ = nodeZ;
+        this.edgeStart = edgeStart;
+        this.edges = edges;
+        this.reverseStart = reverseStart;
+        this.reverseEdges = reverseEdges;
+        this.waypoints = waypoints;
+        this.nextHop = nextHop;
+        this.sourceVersion = sourceVersion;
+    }
+
+    /**
+     * Build the grid for the block range [minX..maxX] x [minY..maxY] x [minZ..maxZ].
+     * Waypoints of the previous grid that are still standable keep their index, so
+     * bots heading to them carry on after a rebuild. Safe to call off the main thread
+     * as long as {@code solid} is a private copy.
+     */
+    public static NavigationGrid build(VoxelMap geometry, BitSet solid, int sourceVersion,
+                                       int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                                       int waypointCount, NavigationGrid previous, Random random) {
+        minX = Math.max(minX, geometry.getMinX());
+        minZ = Math.max(minZ, geometry.getMinZ());
+        maxX = Math.min(maxX, geometry.getMaxX());
+        maxZ = Math.min(maxZ, geometry.getMaxZ());
+        minY = Math.max(minY, geometry.getMinY() + 1);
+        maxY = Math.min(maxY, geometry.getMaxY() - 1);
+
+        int sizeX = Math.max(0, maxX - minX + 1);
+        int sizeZ = Math.max(0, maxZ - minZ + 1);
+        int[] columnStart = new int[sizeX * sizeZ + 1];
+        IntList xs = new IntList();
+        IntList ys = new IntList();
+        IntList zs = new IntList();
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                columnStart[(x - minX) * sizeZ + (z - minZ)] = ys.size();
+                for (int y = minY; y <= maxY; y++) {
+                    if (isStandable(geometry, solid, x, y, z)) {
+                        xs.add(x);
+                        ys.add(y);
+                        zs.add(z);
+                    }
+                }
+            }
+        }
+        columnStart[sizeX * sizeZ] = ys.size();
+
+        int nodeCount = ys.size();
+        int[] nodeX = xs.toArray();
+        int[] nodeY = ys.toArray();
+        int[] nodeZ = zs.toArray();
+
+        int[] edgeStart = new int[nodeCount + 1];
+        IntList edges = new IntList();
+        for (int node = 0; node < nodeCount; node++) {
+            edgeStart[node] = edges.size();
+            int x = nodeX[node];
+            int y = nodeY[node];
+            int z = nodeZ[node];
+            boolean headroom = isFree(geometry, solid, x, y + 2, z);
+            for (int[] direction : DIRECTIONS) {
+                int nx = x + direction[0];
+                int nz = z + direction[1];
+                int column = columnIndex(minX, minZ, sizeX, sizeZ, nx, nz);
+                if (column < 0) continue;
+                for (int other = columnStart[column]; other < columnStart[column + 1]; other++) {
+                    int dy = nodeY[other] - y;
+                    if ((dy > 0 && dy <= MAX_STEP_UP && headroom)
+                            || (dy <= 0 && dy >= -MAX_DROP && isClearDrop(geometry, solid, nx, nodeY[other] + 2, y + 1, nz))) {
+                        edges.add(other);
+                    }
+                }
+            }
+        }
+        edgeStart[nodeCount] = edges.size();
+        int[] edgeArray = edges.toArray();
+
+        int[] waypoints = pickWaypoints(previous, columnStart, nodeY, minX, minZ, sizeX, sizeZ,
+                nodeCount, waypointCount, random);
+        int[][] nextHop = new int[waypoints.length][];
+        int[] reverseStart = new int[nodeCount + 1];
+        int[] reverseEdges = reverse(edgeStart, edgeArray, nodeCount, reverseStart);
+        for (int i = 0; i < waypoints.length; i++) {
+            nextHop[i] = reverseBfs(waypoints[i], nodeCount, reverseStart, reverseEdges);
+        }
+
+        return new NavigationGrid(minX, minZ, sizeX, sizeZ, columnStart, nodeX, nodeY, nodeZ,
+                edgeStart, edgeArray, reverseStart, reverseEdges, waypoints, nextHop, sourceVersion);
+    }
+
+    private static boolean isStandable(VoxelMap geometry, BitSet solid, int x, int y, int z) {
+        return solid.get(geometry.indexOf(x, y - 1, z))
+                && !solid.get(geometry.indexOf(x, y, z))
+                && !solid.get(geometry.indexOf(x, y + 1, z));
+    }
+
+    /**
+     * Whether a block is inside the map and free. Blocks outside the map count as solid.
+     */
+    private static boolean isFree(VoxelMap geometry, BitSet solid, int x, int y, int z) {
+        return geometry.contains(x, y, z) && !solid.get(geometry.indexOf(x, y, z));
+    }
+
+    /**
+     * Whether the column at x/z is free from fromY to toY, i.e. a bot can step
+     * off its node into the column and fall down to the node below
+     */
+    private static boolean isClearDrop(VoxelMap geometry, BitSet solid, int x, int fromY, int toY, int z) {
+        for (int y = fromY; y <= toY; y++) {
+            if (!isFree(geometry, solid, x, y, z)) return false;
+        }
+        return true;
+    }
+
+    private static int[] pickWaypoints(NavigationGrid previous, int[] columnStart, int[] nodeY,
+                                       int minX, int minZ, int sizeX, int sizeZ,
+                                       int nodeCount, int waypointCount, Random random) {
+        int count = Math.min(nodeCount, Math.max(0, waypointCount));
+        int[] waypoints = new int[count];
+        BitSet taken = new BitSet(nodeCount);
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int node = -1;
+            if (previous != null && i < previous.getWaypointCount()) {
+                int old = previous.getWaypointNode(i);
+                int column = columnIndex(minX, minZ, sizeX, sizeZ, previous.getNodeX(old), previous.getNodeZ(old));
+                if (column >= 0) {
+                    for (int other = columnStart[column]; other < columnStart[column + 1]; other++) {
+                        if (nodeY[other] == previous.getNodeY(old) && !taken.get(other)) {
+                            node = other;
+                            break;
+                        }
+                    }
+                }
+            }
+            waypoints[i] = node;
+            if (node >= 0) {
+                taken.set(node);
+                kept++;
+            }
+        }
+
+        // Fill the gaps with distinct random nodes
+        int missing = count - kept;
+        for (int i = 0; i < count && missing > 0; i++) {
+            if (waypoints[i] >= 0) continue;
+            int node;
+            do {
+                node = random.nextInt(nodeCount);
+            } while (taken.get(node));
+            waypoints[i] = node;
+            taken.set(node);
+            missing--;
+        }
+        return waypoints;
+    }
+
+    private static int[] reverse(int[] edgeStart, int[] edges, int nodeCount, int[] reverseStart) {
+        int[] counts = new int[nodeCount + 1];
+        for (int edge : edges) counts[edge + 1]++;
+        for (int i = 0; i < nodeCount; i++) counts[i + 1] += counts[i];
+        System.arraycopy(counts, 0, reverseStart, 0, nodeCount + 1);
+
+        int[] fill = Arrays.copyOf(counts, nodeCount);
+        int[] reverseEdges = new int[edges.length];
+        for (int node = 0; node < nodeCount; node++) {
+            for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                reverseEdges[fill[edges[e]]++] = node;
+            }
+        }
+        return reverseEdges;
+    }
+
+    /**
+     * Next-hop table towards an arbitrary goal node, see {@link FlowField}
+     */
+    public int[] computeNextHops(int goal) {
+        return reverseBfs(goal, nodeY.length, reverseStart, reverseEdges);
+    }
+
+    /**
+     * BFS over reversed edges from a goal. The result holds, for every node, the
+     * next node on a shortest walk to the goal (the goal points to itself, -1 if unreachable).
+     */
+    private static int[] reverseBfs(int goal, int nodeCount, int[] reverseStart, int[] reverseEdges) {
+        int[] next = new int[nodeCount];
+        Arrays.fill(next, -1);
+        next[goal] = goal;
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = goal;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int e = reverseStart[node]; e < reverseStart[node + 1]; e++) {
+                int from = reverseEdges[e];
+                if (next[from] == -1) {
+                    next[from] = node;
+                    queue[tail++] = from;
+                }
+            }
+        }
+        return next;
+    }
+
+    private static int columnIndex(int originX, int originZ, int sizeX, int sizeZ, int x, int z) {
+        int cx = x - originX;
+        int cz = z - originZ;
+        if (cx < 0 || cz < 0 || cx >= sizeX || cz >= sizeZ) return -1;
+        return cx * sizeZ + cz;
+    }
+
+    /**
+     * Find the node a bot standing at the given block position is on.
+     * Allows some vertical slack for bots that are mid-jump or falling.
+     */
+    public int nodeAt(int x, int y, int z) {
+        int column = columnIndex(originX, originZ, sizeX, sizeZ, x, z);
+        if (column < 0) return -1;
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int node = columnStart[column]; node < columnStart[column + 1]; node++) {
+            int dy = y - nodeY[node];
+            if (dy >= 0 && dy <= MAX_DROP + 1 && dy < bestDistance) {
+                best = node;
+                bestDistance = dy;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The next node on the way from a node to a waypoint, -1 if the waypoint can't be reached
+     */
+    public int nextHop(int waypoint, int node) {
+        return nextHop[waypoint][node];
+    }
+
+    public int getWaypointNode(int waypoint) { return waypoints[waypoint]; }
+    public int getWaypointCount() { return waypoints.length; }
+    public int getNodeCount() { return nodeY.length; }
+    public int getNodeX(int node) { return nodeX[node]; }
+    public int getNodeY(int node) { return nodeY[node]; }
+    public int getNodeZ(int node) { return nodeZ[node]; }
+    public int getSourceVersion() { return sourceVersion; }
+
+    public int getEdgeStart(int node) { return edgeStart[node]; }
+    public int getEdgeEnd(int node) { return edgeStart[node + 1]; }
+    public int getEdge(int index) { return edges[index]; }
+
+    /**
+     * Growable int array used while building, to avoid boxing
+     */
+    private static class IntList {
+        private int[] data = new int[256];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        int size() { return size; }
+
+        int[] toArray() { return Arrays.copyOf(data, size); }
+    }
+}
@@ -0,0 +1,146 @@
+package com.pallux.practicebot.world;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact bitset of solid blocks covering a practice area, so collision checks
+ * are bit tests instead of world lookups.
+ *
+ * The map covers the area's bounds plus one block around it and two blocks above,
+ * so ground and head checks at the edges still hit the cache. It is built
+ * off-thread from chunk snapshots and kept current by block events; until the
+ * first build has been published, {@link #isReady()} is false and callers should
+ * fall back to the world.
+ */
+public class VoxelMap {
+
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+
+    private BitSet solid;
+    private boolean ready = false;
+    private int version = 0;
+    private final Map<Integer, Boolean> pendingUpdates = new HashMap<>();
+
+    private VoxelMap(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = maxX - minX + 1;
+        this.sizeY = maxY - minY + 1;
+        this.sizeZ = maxZ - minZ + 1;
+        this.solid = new BitSet(sizeX * sizeY * sizeZ);
+    }
+
+    /**
+     * Create an empty map covering the given area bounds
+     */
+    public static VoxelMap around(World world, Location min, Location max) {
+        int minY = Math.max(world.getMinHeight(), min.getBlockY() - 1);
+        int maxY = Math.min(world.getMaxHeight() - 1, max.getBlockY() + 2);
+        return new VoxelMap(min.getBlockX() - 1, minY, min.getBlockZ() - 1,
+                max.getBlockX() + 1, maxY, max.getBlockZ() + 1);
+    }
+
+    /**
+     * Scan chunk snapshots into a new bitset. Safe to call off the main thread.
+     */
+    public BitSet scan(Collection<ChunkSnapshot> snapshots) {
+        BitSet bits = new BitSet(sizeX * sizeY * sizeZ);
+        for (ChunkSnapshot snapshot : snapshots) {
+            int chunkMinX = snapshot.getX() << 4;
+            int chunkMinZ = snapshot.getZ() << 4;
+            int fromX = Math.max(minX, chunkMinX);
+            int toX = Math.min(getMaxX(), chunkMinX + 15);
+            int fromZ = Math.max(minZ, chunkMinZ);
+            int toZ = Math.min(getMaxZ(), chunkMinZ + 15);
+
+            for (int x = fromX; x <= toX; x++) {
+                for (int z = fromZ; z <= toZ; z++) {
+                    for (int y = minY; y <= getMaxY(); y++) {
+                        if (snapshot.getBlockType(x & 15, y, z & 15).isSolid()) {
+                            bits.set(indexOf(x, y, z));
+                        }
+                    }
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Publish a scanned bitset, replaying block changes that happened during the scan.
+     * Must be called on the main thread.
+     */
+    public void publish(BitSet bits) {
+        this.solid = bits;
+        for (Map.Entry<Integer, Boolean> update : pendingUpdates.entrySet()) {
+            solid.set(update.getKey(), update.getValue());
+        }
+        pendingUpdates.clear();
+        this.ready = true;
+        this.version++;
+    }
+
+    /**
+     * Record a block change. Must be called on the main thread.
+     */
+    public void set(int x, int y, int z, boolean isSolid) {
+        if (!contains(x, y, z)) return;
+        int index = indexOf(x, y, z);
+        if (!ready) {
+            pendingUpdates.put(index, isSolid);
+            return;
+        }
+        if (solid.get(index) != isSolid) {
+            solid.set(index, isSolid);
+            version++;
+        }
+    }
+
+    public boolean isSolid(int x, int y, int z) {
+        return solid.get(indexOf(x, y, z));
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && y >= minY && z >= minZ
+                && x < minX + sizeX && y < minY + sizeY && z < minZ + sizeZ;
+    }
+
+    /**
+     * Copy of the current bits, for building derived data off the main thread
+     */
+    public BitSet copyBits() {
+        return (BitSet) solid.clone();
+    }
+
+    /**
+     * Bit index of a position, for callers working on a {@link #copyBits()} copy
+     */
+    public int indexOf(int x, int y, int z) {
+        return ((x - minX) * sizeZ + (z - minZ)) * sizeY + (y - minY);
+    }
+
+    public boolean isReady() { return ready; }
+    public int getVersion() { return version; }
+    public int getMinX() { return minX; }
+    public int getMinY() { return minY; }
+    public int getMinZ() { return minZ; }
+    public int getMaxX() { return minX + sizeX - 1; }
+    public int getMaxY() { return minY + sizeY - 1; }
+    public int getMaxZ() { return minZ + sizeZ - 1; }
+    public int getSizeX() { return sizeX; }
+    public int getSizeY() { return sizeY; }
+    public int getSizeZ() { return sizeZ; }
+}